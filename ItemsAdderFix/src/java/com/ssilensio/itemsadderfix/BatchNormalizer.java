@@ -0,0 +1,260 @@
+package com.ssilensio.itemsadderfix;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Command line entry point of the shaded jar. Rewrites legacy hover event
+ * UUIDs in newline-delimited JSON files (chat exports, item configs, book and
+ * sign dumps) with the same {@link HoverEventUuidNormalizer} the plugin uses
+ * at runtime, so stored data can be cleaned once instead of on every packet.
+ *
+ * <p>The input is memory-mapped and split into line-aligned chunks that are
+ * normalized in parallel on a fork/join pool. Chunks are written back in input
+ * order, and only a bounded number of them are in flight at any time.</p>
+ *
+ * <pre>java -jar ItemsAdderFix.jar &lt;input&gt; [output] [--threads N] [--no-int-array] [--no-uuid-object]</pre>
+ */
+public final class BatchNormalizer {
+    private static final int CHUNK_BYTES = 8 << 20;
+    private static final int SCAN_BYTES = 64 << 10;
+
+    private final HoverEventUuidNormalizer normalizer = new HoverEventUuidNormalizer();
+    private final HoverEventUuidNormalizer.NormalizationOptions options;
+    private final int parallelism;
+
+    BatchNormalizer(HoverEventUuidNormalizer.NormalizationOptions options, int parallelism) {
+        this.options = options;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public static void main(String[] args) {
+        Path input = null;
+        Path output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean convertIntArrays = true;
+        boolean convertUuidObjects = true;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--threads" -> {
+                    if (i + 1 >= args.length) {
+                        usageError();
+                        return;
+                    }
+                    try {
+                        threads = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException ex) {
+                        usageError();
+                        return;
+                    }
+                }
+                case "--no-int-array" -> convertIntArrays = false;
+                case "--no-uuid-object" -> convertUuidObjects = false;
+                case "-h", "--help" -> {
+                    usage(System.out);
+                    return;
+                }
+                default -> {
+                    if (arg.startsWith("--")) {
+                        usageError();
+                        return;
+                    } else if (input == null) {
+                        input = Path.of(arg);
+                    } else if (output == null) {
+                        output = Path.of(arg);
+                    } else {
+                        usageError();
+                        return;
+                    }
+                }
+            }
+        }
+        if (input == null) {
+            usageError();
+            return;
+        }
+        if (output == null) {
+            output = input.resolveSibling(input.getFileName() + ".normalized");
+        }
+
+        BatchNormalizer batch = new BatchNormalizer(
+                new HoverEventUuidNormalizer.NormalizationOptions(convertIntArrays, convertUuidObjects), threads);
+        try {
+            Summary summary = batch.run(input, output);
+            summary.print(System.out, output);
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("Normalization failed: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException when {@code output} is the input file,
+     *                                  which opening the output would truncate before it is read
+     */
+    Summary run(Path input, Path output) throws IOException {
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IllegalArgumentException("output " + output + " is the input file");
+        }
+        long started = System.nanoTime();
+        Summary summary = new Summary();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            Deque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+            long position = 0;
+            while (position < size || !inFlight.isEmpty()) {
+                while (position < size && inFlight.size() < parallelism * 2) {
+                    long end = chunkEnd(in, position, size);
+                    MappedByteBuffer chunk = in.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+                    inFlight.addLast(pool.submit(new ChunkTask(chunk)));
+                    position = end;
+                }
+                ChunkResult result = inFlight.removeFirst().join();
+                ByteBuffer bytes = ByteBuffer.wrap(result.output());
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                summary.add(result);
+            }
+            summary.bytes = size;
+        } finally {
+            pool.shutdownNow();
+        }
+        summary.elapsedNanos = System.nanoTime() - started;
+        return summary;
+    }
+
+    /**
+     * Returns the offset just past the first newline at or after
+     * {@code start + CHUNK_BYTES}, or the end of the file.
+     */
+    private static long chunkEnd(FileChannel channel, long start, long size) throws IOException {
+        long position = start + CHUNK_BYTES;
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BYTES);
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    ChunkResult normalizeChunk(ByteBuffer chunk) {
+        String text = StandardCharsets.UTF_8.decode(chunk).toString();
+        StringBuilder output = new StringBuilder(text.length() + 64);
+        long[] fixes = new long[1];
+        long lines = 0;
+        long changedLines = 0;
+
+        int lineStart = 0;
+        int length = text.length();
+        while (lineStart < length) {
+            int newline = text.indexOf('\n', lineStart);
+            int lineEnd = newline < 0 ? length : newline;
+            int contentEnd = lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            String line = text.substring(lineStart, contentEnd);
+            lines++;
+
+            String normalized = line.isBlank()
+                    ? line
+                    : normalizer.normalize(line, options, record -> fixes[0]++);
+            if (!normalized.equals(line)) {
+                changedLines++;
+            }
+            output.append(normalized).append(text, contentEnd, newline < 0 ? length : newline + 1);
+            lineStart = newline < 0 ? length : newline + 1;
+        }
+
+        return new ChunkResult(output.toString().getBytes(StandardCharsets.UTF_8), lines, changedLines, fixes[0]);
+    }
+
+    private static void usage(PrintStream out) {
+        out.println("Usage: java -jar ItemsAdderFix.jar <input.ndjson> [output.ndjson]"
+                + " [--threads N] [--no-int-array] [--no-uuid-object]");
+        out.println("Rewrites legacy show_entity UUID payloads in newline-delimited component JSON.");
+        out.println("The output defaults to <input>.normalized and must not be the input file.");
+    }
+
+    private static void usageError() {
+        usage(System.err);
+        System.exit(2);
+    }
+
+    private final class ChunkTask extends RecursiveTask<ChunkResult> {
+        private final ByteBuffer chunk;
+
+        private ChunkTask(ByteBuffer chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            return normalizeChunk(chunk);
+        }
+    }
+
+    record ChunkResult(byte[] output, long lines, long changedLines, long fixes) {}
+
+    static final class Summary {
+        private long lines;
+        private long changedLines;
+        private long fixes;
+        private long bytes;
+        private long elapsedNanos;
+
+        private void add(ChunkResult result) {
+            lines += result.lines();
+            changedLines += result.changedLines();
+            fixes += result.fixes();
+        }
+
+        long lines() {
+            return lines;
+        }
+
+        long changedLines() {
+            return changedLines;
+        }
+
+        long fixes() {
+            return fixes;
+        }
+
+        void print(PrintStream out, Path output) {
+            double seconds = Math.max(elapsedNanos, 1L) / 1_000_000_000.0;
+            out.printf(Locale.ROOT, "Processed %,d lines (%.1f MiB) in %.2f s: %,.0f lines/s, %.1f MiB/s%n",
+                    lines, bytes / 1048576.0, seconds, lines / seconds, bytes / 1048576.0 / seconds);
+            out.printf(Locale.ROOT, "Fixed %,d legacy UUID payloads in %,d lines. Output written to %s%n",
+                    fixes, changedLines, output);
+        }
+    }
+}
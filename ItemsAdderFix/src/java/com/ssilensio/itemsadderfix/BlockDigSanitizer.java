@@ -5,6 +5,27 @@ import com.comphenix.protocol.wrappers.EnumWrappers;
 import com.comphenix.protocol.wrappers.EnumWrappers.PlayerDigType;
 
 final class BlockDigSanitizer {
+    /**
+     * Decisions returned by the primitive {@link #evaluate(PlayerDigType, int, int, int, ChunkLoadChecker, PositionSource)}
+     * overload. A replacement is returned as the packed block position itself;
+     * allow and cancel use the y value -2048, which {@link BlockPositions#pack}
+     * never produces, and carry the cancel reason in the z bits.
+     */
+    static final long ALLOW = decision(0);
+    static final int REASON_UNLOADED_CHUNK = 1;
+    static final int REASON_OUT_OF_REACH = 2;
+    static final int REASON_OUTSIDE_WORLD = 3;
+    static final int REASON_ORPHAN = 4;
+    static final int REASON_MISMATCHED = 5;
+    static final int REASON_COUNT = 6;
+
+    private static final long SENTINEL_Y = 0x800L;
+    // Indexed by EnumWrappers.Direction ordinal: DOWN, UP, NORTH, SOUTH, WEST, EAST
+    private static final int[] FACE_OFFSET_X = {0, 0, 0, 0, -1, 1};
+    private static final int[] FACE_OFFSET_Z = {0, 0, -1, 1, 0, 0};
+
+    private final long maxReachSquared;
+
     interface ChunkLoadChecker {
         boolean isChunkLoaded(int chunkX, int chunkZ);
     }
@@ -13,6 +34,21 @@ final class BlockDigSanitizer {
         BlockPosition currentBlockPosition();
     }
 
+    interface PositionSource {
+        /**
+         * @return the packed block position of the player, or {@link BlockPositions#NO_POSITION}
+         */
+        long currentPackedPosition();
+
+        default int minBuildHeight() {
+            return Integer.MIN_VALUE;
+        }
+
+        default int maxBuildHeight() {
+            return Integer.MAX_VALUE;
+        }
+    }
+
     static final class Result {
         private static final Result ALLOW = new Result(false, null);
         private static final Result CANCEL = new Result(true, null);
@@ -46,74 +82,207 @@ final class BlockDigSanitizer {
         }
     }
 
+    BlockDigSanitizer() {
+        this(0);
+    }
+
+    /**
+     * @param maxReach maximum distance in blocks between the player and a dug
+     *                 block; zero or less disables the reach check
+     */
+    BlockDigSanitizer(int maxReach) {
+        this.maxReachSquared = maxReach > 0 ? (long) maxReach * maxReach : -1L;
+    }
+
+    static String describeReason(int reason) {
+        switch (reason) {
+            case REASON_UNLOADED_CHUNK:
+                return "the chunk is not loaded";
+            case REASON_OUT_OF_REACH:
+                return "the block is out of reach";
+            case REASON_OUTSIDE_WORLD:
+                return "the block is outside the world height";
+            case REASON_ORPHAN:
+                return "no dig was started";
+            case REASON_MISMATCHED:
+                return "it does not match the block being dug";
+            default:
+                return "it is invalid";
+        }
+    }
+
+    static long cancel(int reason) {
+        return decision(reason);
+    }
+
+    static boolean isReplacement(long decision) {
+        return (decision & 0xFFF) != SENTINEL_Y;
+    }
+
+    static boolean isCancel(long decision) {
+        return decision != ALLOW && !isReplacement(decision);
+    }
+
+    static int cancelReason(long decision) {
+        return isCancel(decision) ? (int) (decision >>> 12) : 0;
+    }
+
+    private static long decision(int reason) {
+        return ((long) reason << 12) | SENTINEL_Y;
+    }
+
     Result evaluate(PlayerDigType digType,
                     BlockPosition position,
                     ChunkLoadChecker checker,
                     BlockPositionProvider blockPositionProvider) {
-        if (digType == null) {
+        if (digType == null || (position == null && digType == PlayerDigType.START_DESTROY_BLOCK)) {
             return Result.allow();
         }
 
+        long decision = evaluate(
+                digType,
+                position != null ? position.getX() : 0,
+                position != null ? position.getY() : 0,
+                position != null ? position.getZ() : 0,
+                guarded(checker),
+                guarded(blockPositionProvider)
+        );
+        if (isReplacement(decision)) {
+            return Result.replace(BlockPositions.toBlockPosition(decision));
+        }
+        return decision == ALLOW ? Result.allow() : Result.cancel();
+    }
+
+    /**
+     * Allocation-free variant used on the packet thread. The checker and
+     * position source are expected to be reusable per-player objects that
+     * never throw.
+     */
+    long evaluate(PlayerDigType digType,
+                  int x,
+                  int y,
+                  int z,
+                  ChunkLoadChecker checker,
+                  PositionSource positionSource) {
         if (digType == PlayerDigType.START_DESTROY_BLOCK) {
-            return sanitizeBlockStart(position, checker, blockPositionProvider);
+            return sanitizeBlockStart(x, y, z, checker, positionSource);
+        }
+        if (digType == PlayerDigType.STOP_DESTROY_BLOCK || digType == PlayerDigType.ABORT_DESTROY_BLOCK) {
+            return validateTarget(x, y, z, positionSource);
         }
         if (digType == PlayerDigType.DROP_ITEM
                 || digType == PlayerDigType.DROP_ALL_ITEMS
                 || digType == PlayerDigType.RELEASE_USE_ITEM) {
-            return sanitizeNonBlockAction(position, blockPositionProvider);
+            return sanitizeNonBlockAction(x, y, z, positionSource);
         }
-        return Result.allow();
+        return ALLOW;
     }
 
-    private Result sanitizeBlockStart(BlockPosition position,
-                                      ChunkLoadChecker checker,
-                                      BlockPositionProvider provider) {
-        if (position == null) {
-            return Result.allow();
-        }
+    private long sanitizeBlockStart(int x, int y, int z, ChunkLoadChecker checker, PositionSource source) {
+        long replacement = BlockPositions.NO_POSITION;
+        int targetX = x;
+        int targetZ = z;
 
-        BlockPosition target = position;
-        boolean replacementApplied = false;
+        if (source != null && (x | y | z) == 0) {
+            replacement = source.currentPackedPosition();
+            if (replacement != BlockPositions.NO_POSITION) {
+                targetX = BlockPositions.x(replacement);
+                targetZ = BlockPositions.z(replacement);
+            }
+        }
 
-        if (provider != null && (position.getX() | position.getY() | position.getZ()) == 0) {
-            try {
-                BlockPosition candidate = provider.currentBlockPosition();
-                if (candidate != null) {
-                    target = candidate;
-                    replacementApplied = true;
-                }
-            } catch (RuntimeException ex) {
-                // Ignore and fall back to the original position
+        if (replacement == BlockPositions.NO_POSITION) {
+            long validation = validateTarget(x, y, z, source);
+            if (validation != ALLOW) {
+                return validation;
             }
         }
 
-        if (checker == null) {
-            return replacementApplied ? Result.replace(target) : Result.allow();
+        if (checker != null && !checker.isChunkLoaded(targetX >> 4, targetZ >> 4)) {
+            return cancel(REASON_UNLOADED_CHUNK);
         }
+        return replacement != BlockPositions.NO_POSITION ? replacement : ALLOW;
+    }
 
-        int chunkX = target.getX() >> 4;
-        int chunkZ = target.getZ() >> 4;
-        try {
-            if (!checker.isChunkLoaded(chunkX, chunkZ)) {
-                return Result.cancel();
-            }
-            return replacementApplied ? Result.replace(target) : Result.allow();
-        } catch (RuntimeException ex) {
-            return replacementApplied ? Result.replace(target) : Result.allow();
+    private long validateTarget(int x, int y, int z, PositionSource source) {
+        if (source == null) {
+            return ALLOW;
+        }
+        if (y < source.minBuildHeight() || y >= source.maxBuildHeight()) {
+            return cancel(REASON_OUTSIDE_WORLD);
+        }
+        if (maxReachSquared < 0) {
+            return ALLOW;
+        }
+        long player = source.currentPackedPosition();
+        if (player == BlockPositions.NO_POSITION) {
+            return ALLOW;
         }
+        // Measured from the block at eye level, which is close enough at block granularity
+        long dx = x - BlockPositions.x(player);
+        long dy = y - (BlockPositions.y(player) + 1);
+        long dz = z - BlockPositions.z(player);
+        return dx * dx + dy * dy + dz * dz > maxReachSquared ? cancel(REASON_OUT_OF_REACH) : ALLOW;
     }
 
-    private Result sanitizeNonBlockAction(BlockPosition position, BlockPositionProvider provider) {
-        if (provider == null) {
-            return Result.allow();
+    private long sanitizeNonBlockAction(int x, int y, int z, PositionSource source) {
+        if (source == null || (x | y | z) != 0) {
+            return ALLOW;
         }
-        if (position != null && (position.getX() | position.getY() | position.getZ()) != 0) {
-            return Result.allow();
+        long replacement = source.currentPackedPosition();
+        return replacement != BlockPositions.NO_POSITION ? replacement : ALLOW;
+    }
+
+    /**
+     * Checks a use-item-on interaction: both the clicked block and the block
+     * on the clicked face (where a block or furniture would be placed) must
+     * sit in loaded chunks.
+     */
+    long evaluateUseItemOn(int x, int y, int z, EnumWrappers.Direction face, ChunkLoadChecker checker) {
+        if (checker == null) {
+            return ALLOW;
         }
-        try {
-            return Result.replace(provider.currentBlockPosition());
-        } catch (RuntimeException ex) {
-            return Result.allow();
+        if (!checker.isChunkLoaded(x >> 4, z >> 4)) {
+            return cancel(REASON_UNLOADED_CHUNK);
+        }
+        if (face != null) {
+            int placedX = x + FACE_OFFSET_X[face.ordinal()];
+            int placedZ = z + FACE_OFFSET_Z[face.ordinal()];
+            if ((placedX >> 4 != x >> 4 || placedZ >> 4 != z >> 4) && !checker.isChunkLoaded(placedX >> 4, placedZ >> 4)) {
+                return cancel(REASON_UNLOADED_CHUNK);
+            }
+        }
+        return ALLOW;
+    }
+
+    private static ChunkLoadChecker guarded(ChunkLoadChecker checker) {
+        if (checker == null) {
+            return null;
+        }
+        return (chunkX, chunkZ) -> {
+            try {
+                return checker.isChunkLoaded(chunkX, chunkZ);
+            } catch (RuntimeException ex) {
+                // Treat failures as loaded so the packet is left untouched
+                return true;
+            }
+        };
+    }
+
+    private static PositionSource guarded(BlockPositionProvider provider) {
+        if (provider == null) {
+            return null;
         }
+        return () -> {
+            try {
+                BlockPosition position = provider.currentBlockPosition();
+                return position == null
+                        ? BlockPositions.NO_POSITION
+                        : BlockPositions.pack(position.getX(), position.getY(), position.getZ());
+            } catch (RuntimeException ex) {
+                // Ignore and fall back to the original position
+                return BlockPositions.NO_POSITION;
+            }
+        };
     }
 }
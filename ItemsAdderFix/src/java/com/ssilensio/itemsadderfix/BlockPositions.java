@@ -0,0 +1,42 @@
+package com.ssilensio.itemsadderfix;
+
+import com.comphenix.protocol.wrappers.BlockPosition;
+
+/**
+ * Packs block coordinates into a single {@code long} using the vanilla layout
+ * (26 bits x, 26 bits z, 12 bits y). Y is clamped to [-2047, 2047], so
+ * {@link #pack} never produces y = -2048; {@link BlockDigSanitizer} uses that
+ * value for its decisions. {@link #NO_POSITION} is not such an encoding: it
+ * equals {@code pack(-33554432, 0, 0)} and is only safe because that x lies
+ * far outside the world border.
+ */
+final class BlockPositions {
+    static final long NO_POSITION = Long.MIN_VALUE;
+
+    private static final int MIN_Y = -2047;
+    private static final int MAX_Y = 2047;
+
+    private BlockPositions() {
+    }
+
+    static long pack(int x, int y, int z) {
+        int clampedY = Math.max(MIN_Y, Math.min(MAX_Y, y));
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (clampedY & 0xFFF);
+    }
+
+    static int x(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    static int y(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    static int z(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    static BlockPosition toBlockPosition(long packed) {
+        return packed == NO_POSITION ? null : new BlockPosition(x(packed), y(packed), z(packed));
+    }
+}
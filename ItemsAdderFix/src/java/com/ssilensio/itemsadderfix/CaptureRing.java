@@ -0,0 +1,169 @@
+package com.ssilensio.itemsadderfix;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size in-memory ring of sampled component payloads, before and after
+ * normalization. Slots are allocated once and overwritten in place, so an
+ * enabled ring costs one random draw per component and nothing else unless
+ * the sample hits. A normalization error is recorded and freezes the ring so
+ * the traffic leading up to it survives until somebody dumps it.
+ */
+final class CaptureRing {
+    private static final Gson GSON = new Gson();
+
+    private final Slot[] slots;
+    private final int mask;
+    private final int sampleRate;
+    private final boolean alwaysCaptureFixes;
+    private final boolean freezeOnError;
+    private final AtomicLong cursor = new AtomicLong();
+    private volatile boolean frozen;
+
+    CaptureRing(int capacity, int sampleRate, boolean alwaysCaptureFixes, boolean freezeOnError) {
+        int size = Integer.highestOneBit(Math.max(1, Math.min(1 << 16, capacity)) * 2 - 1);
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.alwaysCaptureFixes = alwaysCaptureFixes;
+        this.freezeOnError = freezeOnError;
+    }
+
+    void offer(String packetType, String playerName, String before, String after) {
+        if (frozen) {
+            return;
+        }
+        boolean changed = !before.equals(after);
+        if (!(changed && alwaysCaptureFixes)
+                && (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0)) {
+            return;
+        }
+        write(packetType, playerName, before, after, null);
+    }
+
+    void recordError(String packetType, String playerName, String before, Throwable error) {
+        if (frozen) {
+            return;
+        }
+        write(packetType, playerName, before, null, String.valueOf(error));
+        if (freezeOnError) {
+            frozen = true;
+        }
+    }
+
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    void freeze() {
+        frozen = true;
+    }
+
+    void resume() {
+        frozen = false;
+    }
+
+    long captured() {
+        return cursor.get();
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Copies the captured entries, oldest first.
+     */
+    List<Entry> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(0, end - slots.length);
+        List<Entry> entries = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Slot slot = slots[(int) (sequence & mask)];
+            synchronized (slot) {
+                if (slot.sequence == sequence) {
+                    entries.add(new Entry(sequence, slot.timestamp, slot.packetType, slot.playerName,
+                            slot.before, slot.after, slot.error));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Writes the captured entries to {@code file} as one JSON object per line
+     * and returns how many were written.
+     */
+    int dump(Path file) throws IOException {
+        List<Entry> entries = snapshot();
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Entry entry : entries) {
+                JsonObject line = new JsonObject();
+                line.addProperty("sequence", entry.sequence());
+                line.addProperty("time", Instant.ofEpochMilli(entry.timestamp()).toString());
+                line.addProperty("packet", entry.packetType());
+                line.addProperty("player", entry.playerName());
+                line.addProperty("before", entry.before());
+                line.addProperty("after", entry.after());
+                line.addProperty("changed", entry.after() != null && !entry.after().equals(entry.before()));
+                if (entry.error() != null) {
+                    line.addProperty("error", entry.error());
+                }
+                writer.write(GSON.toJson(line));
+                writer.newLine();
+            }
+        }
+        return entries.size();
+    }
+
+    private void write(String packetType, String playerName, String before, String after, String error) {
+        long sequence = cursor.getAndIncrement();
+        Slot slot = slots[(int) (sequence & mask)];
+        synchronized (slot) {
+            if (slot.sequence > sequence) {
+                return;
+            }
+            slot.sequence = sequence;
+            slot.timestamp = System.currentTimeMillis();
+            slot.packetType = packetType;
+            slot.playerName = playerName;
+            slot.before = before;
+            slot.after = after;
+            slot.error = error;
+        }
+    }
+
+    record Entry(long sequence,
+                 long timestamp,
+                 String packetType,
+                 String playerName,
+                 String before,
+                 String after,
+                 String error) {}
+
+    private static final class Slot {
+        private long sequence = -1;
+        private long timestamp;
+        private String packetType;
+        private String playerName;
+        private String before;
+        private String after;
+        private String error;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ssilensio.itemsadderfix;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+final class ChunkTrackingListener implements Listener {
+    private final LoadedChunkIndex index;
+    private final Logger logger;
+    private final AtomicBoolean unlistedReported = new AtomicBoolean();
+
+    ChunkTrackingListener(LoadedChunkIndex index, Logger logger) {
+        this.index = index;
+        this.logger = logger;
+    }
+
+    /**
+     * @return {@code false} when the server refused to list loaded chunks from
+     * this thread (Folia). Only the height range of such worlds is tracked:
+     * every chunk in them is assumed loaded rather than learned from load
+     * events alone, which would cancel digs in chunks that were loaded before
+     * the seed. The first such world is reported once.
+     */
+    boolean seed(Iterable<World> worlds) {
+        boolean complete = true;
+        for (World world : worlds) {
+            complete &= seed(world);
+        }
+        return complete;
+    }
+
+    private boolean seed(World world) {
+        Chunk[] chunks;
+        try {
+            chunks = world.getLoadedChunks();
+        } catch (UnsupportedOperationException | IllegalStateException ex) {
+            index.trackHeights(world.getUID(), world.getMinHeight(), world.getMaxHeight());
+            if (unlistedReported.compareAndSet(false, true)) {
+                logger.warning("Loaded chunks of world " + world.getName() + " cannot be listed on this server (Folia);"
+                        + " unloaded chunk checks are disabled there and in any other such world."
+                        + " Reach and world height checks still apply.");
+            }
+            return false;
+        }
+        index.track(world.getUID(), world.getMinHeight(), world.getMaxHeight());
+        for (Chunk chunk : chunks) {
+            index.markLoaded(world.getUID(), chunk.getX(), chunk.getZ());
+        }
+        return true;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        index.markLoaded(event.getWorld().getUID(), chunk.getX(), chunk.getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        index.markUnloaded(event.getWorld().getUID(), chunk.getX(), chunk.getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        seed(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        index.untrack(event.getWorld().getUID());
+    }
+}
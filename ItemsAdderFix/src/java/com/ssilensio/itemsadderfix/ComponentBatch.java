@@ -0,0 +1,104 @@
+package com.ssilensio.itemsadderfix;
+
+import java.util.Arrays;
+
+/**
+ * Component JSON gathered from one packet or one bundle of packets, together
+ * with where each component came from so the caller can write changed ones
+ * back. {@link NormalizationPipeline#normalizeBatch} fills in the results.
+ * A batch is reusable after {@link #clear()} and is not thread-safe.
+ */
+final class ComponentBatch {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] packetTypes = new String[0];
+    private String[] json = new String[0];
+    private String[] normalized = new String[0];
+    private Object[] owners = new Object[0];
+    private int[] slots = new int[0];
+    private int size;
+    private RuntimeException failure;
+
+    void add(String packetType, String payload, Object owner, int slot) {
+        if (size == json.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            packetTypes = Arrays.copyOf(packetTypes, capacity);
+            json = Arrays.copyOf(json, capacity);
+            normalized = Arrays.copyOf(normalized, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        packetTypes[size] = packetType;
+        json[size] = payload;
+        owners[size] = owner;
+        slots[size] = slot;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String packetType(int index) {
+        return packetTypes[index];
+    }
+
+    String json(int index) {
+        return json[index];
+    }
+
+    /**
+     * Returns the normalized payload, which is the original instance when
+     * nothing changed or the batch has not been normalized yet.
+     */
+    String normalized(int index) {
+        String value = normalized[index];
+        return value != null ? value : json[index];
+    }
+
+    /**
+     * Returns whether a result is already set, for example from
+     * {@link HudChannelMemo}; the pipeline leaves such components alone.
+     */
+    boolean resolved(int index) {
+        return normalized[index] != null;
+    }
+
+    boolean changed(int index) {
+        return normalized[index] != null && !normalized[index].equals(json[index]);
+    }
+
+    Object owner(int index) {
+        return owners[index];
+    }
+
+    int slot(int index) {
+        return slots[index];
+    }
+
+    void setNormalized(int index, String value) {
+        normalized[index] = value;
+    }
+
+    /**
+     * Remembers the first component that could not be normalized.
+     */
+    void fail(RuntimeException ex) {
+        if (failure == null) {
+            failure = ex;
+        }
+    }
+
+    RuntimeException failure() {
+        return failure;
+    }
+
+    void clear() {
+        Arrays.fill(packetTypes, 0, size, null);
+        Arrays.fill(json, 0, size, null);
+        Arrays.fill(normalized, 0, size, null);
+        Arrays.fill(owners, 0, size, null);
+        size = 0;
+        failure = null;
+    }
+}
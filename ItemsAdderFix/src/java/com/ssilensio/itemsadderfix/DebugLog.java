@@ -0,0 +1,171 @@
+package com.ssilensio.itemsadderfix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Debug output that is safe to leave on under load. Packet threads only queue
+ * a message supplier; the text is built and written to the console by
+ * {@link #drain(long)} on the plugin's once-a-second async ticker. Each
+ * category may queue a limited number of messages per drain, the rest are
+ * counted and reported as one summary line per category. Optional player and
+ * packet type filters narrow the output down to what is being investigated.
+ */
+final class DebugLog {
+    enum Category {
+        NORMALIZATION("hover event normalization"),
+        DIG("dig"),
+        INTERACTION("interaction");
+
+        private final String description;
+
+        Category(String description) {
+            this.description = description;
+        }
+    }
+
+    private final Logger logger;
+    private final PluginSettings.DebugLogSettings settings;
+    private final BlockingQueue<Supplier<String>> queue;
+    private final AtomicInteger[] queued = new AtomicInteger[Category.values().length];
+    private final LongAdder[] suppressed = new LongAdder[Category.values().length];
+    private final LongAdder dropped = new LongAdder();
+    private volatile Set<String> players = Set.of();
+    private volatile Set<String> packetTypes = Set.of();
+    private long lastSummary;
+
+    DebugLog(Logger logger, PluginSettings.DebugLogSettings settings, long now) {
+        this.logger = logger;
+        this.settings = settings;
+        this.queue = new ArrayBlockingQueue<>(settings.queueCapacity());
+        for (int i = 0; i < queued.length; i++) {
+            queued[i] = new AtomicInteger();
+            suppressed[i] = new LongAdder();
+        }
+        this.lastSummary = now;
+    }
+
+    PluginSettings.DebugLogSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Queues a message unless it is filtered out or its category is over its
+     * limit. {@code playerName} and {@code packetType} may be {@code null};
+     * such messages never pass an active filter on that field.
+     */
+    void log(Category category, String playerName, String packetType, Supplier<String> message) {
+        if (!accepts(playerName, packetType)) {
+            return;
+        }
+        int index = category.ordinal();
+        if (queued[index].incrementAndGet() > settings.maxMessagesPerSecond()) {
+            suppressed[index].increment();
+            return;
+        }
+        if (!queue.offer(message)) {
+            dropped.increment();
+        }
+    }
+
+    boolean accepts(String playerName, String packetType) {
+        Set<String> playerFilter = players;
+        if (!playerFilter.isEmpty()
+                && (playerName == null || !playerFilter.contains(playerName.toLowerCase(Locale.ROOT)))) {
+            return false;
+        }
+        Set<String> packetFilter = packetTypes;
+        return packetFilter.isEmpty()
+                || (packetType != null && packetFilter.contains(packetType.toUpperCase(Locale.ROOT)));
+    }
+
+    /**
+     * Writes queued messages to the logger and starts a new rate limit window.
+     * Once per summary interval it also reports what was suppressed or
+     * dropped since the previous summary. Returns the number of messages
+     * written.
+     */
+    synchronized int drain(long now) {
+        List<Supplier<String>> batch = new ArrayList<>(queue.size());
+        queue.drainTo(batch);
+        for (Supplier<String> message : batch) {
+            try {
+                logger.info(message.get());
+            } catch (RuntimeException ex) {
+                logger.log(Level.WARNING, "Unable to render debug message", ex);
+            }
+        }
+        for (AtomicInteger count : queued) {
+            count.set(0);
+        }
+
+        long elapsed = now - lastSummary;
+        if (elapsed >= TimeUnit.SECONDS.toNanos(settings.summaryIntervalSeconds())) {
+            lastSummary = now;
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(elapsed));
+            for (Category category : Category.values()) {
+                long count = suppressed[category.ordinal()].sumThenReset();
+                if (count > 0) {
+                    logger.info(count + " similar " + category.description + " debug messages in the last "
+                            + seconds + " s were not shown.");
+                }
+            }
+            long lost = dropped.sumThenReset();
+            if (lost > 0) {
+                logger.info(lost + " debug messages in the last " + seconds + " s were dropped because the queue was full.");
+            }
+        }
+        return batch.size();
+    }
+
+    Set<String> players() {
+        return players;
+    }
+
+    Set<String> packetTypes() {
+        return packetTypes;
+    }
+
+    synchronized void addPlayer(String playerName) {
+        players = copyWith(players, playerName.toLowerCase(Locale.ROOT));
+    }
+
+    synchronized void addPacketType(String packetType) {
+        packetTypes = copyWith(packetTypes, packetType.toUpperCase(Locale.ROOT));
+    }
+
+    synchronized void clearFilters() {
+        players = Set.of();
+        packetTypes = Set.of();
+    }
+
+    /**
+     * Carries the command-set filters over from the sink this one replaces.
+     */
+    synchronized void copyFilters(DebugLog previous) {
+        synchronized (previous) {
+            players = previous.players;
+            packetTypes = previous.packetTypes;
+        }
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    private static Set<String> copyWith(Set<String> values, String value) {
+        List<String> copy = new ArrayList<>(values);
+        copy.add(value);
+        return Set.copyOf(copy);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ssilensio.itemsadderfix;
+
+import com.ssilensio.itemsadderfix.util.ConcurrentIntObjectMap;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Acknowledges the sequence numbers of dig packets the plugin cancelled. The
+ * client predicts the result of a dig and keeps resending it until the server
+ * acknowledges that sequence, so a silently cancelled packet turns into a
+ * retry stream. Acknowledgements are coalesced per player: packet threads
+ * only raise the player's highest pending sequence, and the first one of a
+ * tick schedules a single send on the player's thread for the next tick.
+ * Acknowledging the highest sequence covers every earlier one.
+ */
+final class DigAcknowledger implements Listener {
+    private static final int NONE = -1;
+
+    private final ConcurrentIntObjectMap<AtomicInteger> pending = new ConcurrentIntObjectMap<>();
+    private final BiConsumer<Player, Runnable> scheduler;
+    private final ObjIntConsumer<Player> sender;
+
+    /**
+     * @param scheduler runs a task for the player on the next tick
+     * @param sender    sends the block changed acknowledgement
+     */
+    DigAcknowledger(BiConsumer<Player, Runnable> scheduler, ObjIntConsumer<Player> sender) {
+        this.scheduler = scheduler;
+        this.sender = sender;
+    }
+
+    void acknowledge(int entityId, Player player, int sequence) {
+        if (sequence < 0) {
+            return;
+        }
+        AtomicInteger highest = pending.get(entityId);
+        if (highest == null) {
+            highest = pending.computeIfAbsent(entityId, ignored -> new AtomicInteger(NONE));
+        }
+        if (highest.getAndAccumulate(sequence, Math::max) == NONE) {
+            AtomicInteger scheduled = highest;
+            scheduler.accept(player, () -> flush(player, scheduled));
+        }
+    }
+
+    int pending() {
+        return pending.size();
+    }
+
+    void clear() {
+        pending.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        pending.remove(event.getPlayer().getEntityId());
+    }
+
+    private void flush(Player player, AtomicInteger highest) {
+        int sequence = highest.getAndSet(NONE);
+        if (sequence != NONE) {
+            sender.accept(player, sequence);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.ssilensio.itemsadderfix;
+
+import com.ssilensio.itemsadderfix.util.ConcurrentIntObjectMap;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-player token buckets for dig packets. Each bucket packs its last refill
+ * time (milliseconds, upper 32 bits) and its token balance (milli-tokens,
+ * lower 32 bits) into one {@link AtomicLong}, so acquiring a token is a single
+ * compare-and-set on the packet thread.
+ */
+final class DigRateLimiter implements Listener {
+    static final int MAX_BURST = 4000;
+
+    private final ConcurrentIntObjectMap<Bucket> buckets = new ConcurrentIntObjectMap<>();
+    private final LongAdder droppedTotal = new LongAdder();
+    private final LongSupplier clock;
+    private final long ratePerMillisecond;
+    private final long capacity;
+
+    DigRateLimiter(int packetsPerSecond, int burst) {
+        this(packetsPerSecond, burst, () -> System.nanoTime() / 1_000_000L);
+    }
+
+    DigRateLimiter(int packetsPerSecond, int burst, LongSupplier clock) {
+        this.clock = clock;
+        this.ratePerMillisecond = Math.max(1, packetsPerSecond);
+        this.capacity = Math.max(1, Math.min(MAX_BURST, burst)) * 1000L;
+    }
+
+    boolean tryAcquire(int entityId, String playerName) {
+        Bucket bucket = buckets.get(entityId);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(entityId, ignored -> new Bucket(playerName, (int) clock.getAsLong(), capacity));
+        }
+        if (bucket.tryAcquire((int) clock.getAsLong(), ratePerMillisecond, capacity)) {
+            return true;
+        }
+        bucket.dropped.incrementAndGet();
+        droppedTotal.increment();
+        return false;
+    }
+
+    long droppedTotal() {
+        return droppedTotal.sum();
+    }
+
+    /**
+     * Collects and resets the per-player drop counters accumulated since the
+     * previous call.
+     */
+    List<Offender> drainOffenders() {
+        List<Offender> offenders = new ArrayList<>();
+        buckets.forEachValue(bucket -> {
+            int dropped = bucket.dropped.getAndSet(0);
+            if (dropped > 0) {
+                offenders.add(new Offender(bucket.playerName, dropped));
+            }
+        });
+        offenders.sort((left, right) -> Integer.compare(right.dropped(), left.dropped()));
+        return offenders;
+    }
+
+    void clear() {
+        buckets.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        buckets.remove(event.getPlayer().getEntityId());
+    }
+
+    record Offender(String playerName, int dropped) {}
+
+    private static final class Bucket {
+        private final String playerName;
+        private final AtomicLong state;
+        private final AtomicInteger dropped = new AtomicInteger();
+
+        private Bucket(String playerName, int now, long capacity) {
+            this.playerName = playerName;
+            this.state = new AtomicLong(pack(now, capacity));
+        }
+
+        private boolean tryAcquire(int now, long ratePerMillisecond, long capacity) {
+            while (true) {
+                long current = state.get();
+                int last = (int) (current >>> 32);
+                long tokens = current & 0xFFFFFFFFL;
+                long elapsed = now - last;
+                long refilled = elapsed < 0 || elapsed >= capacity / ratePerMillisecond
+                        ? capacity
+                        : Math.min(capacity, tokens + elapsed * ratePerMillisecond);
+                if (refilled < 1000L) {
+                    return false;
+                }
+                if (state.compareAndSet(current, pack(now, refilled - 1000L))) {
+                    return true;
+                }
+            }
+        }
+
+        private static long pack(int timestamp, long tokens) {
+            return ((long) timestamp << 32) | tokens;
+        }
+    }
+}
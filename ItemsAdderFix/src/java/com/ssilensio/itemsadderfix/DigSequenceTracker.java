@@ -0,0 +1,65 @@
+package com.ssilensio.itemsadderfix;
+
+import com.ssilensio.itemsadderfix.util.ConcurrentIntObjectMap;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Remembers the block each player is currently digging so STOP/ABORT packets
+ * without a matching accepted START can be dropped before ItemsAdder looks
+ * them up. The active target is a single packed block position per player.
+ */
+final class DigSequenceTracker implements Listener {
+    private final ConcurrentIntObjectMap<DigState> states = new ConcurrentIntObjectMap<>();
+
+    /**
+     * Records the outcome of a START packet.
+     *
+     * @param target the packed position the dig was accepted for, or
+     *               {@link BlockPositions#NO_POSITION} when the START was dropped
+     */
+    void recordStart(int entityId, long target) {
+        DigState state = states.get(entityId);
+        if (state == null) {
+            if (target == BlockPositions.NO_POSITION) {
+                return;
+            }
+            state = states.computeIfAbsent(entityId, ignored -> new DigState());
+        }
+        state.target = target;
+    }
+
+    /**
+     * Validates a STOP or ABORT packet against the active dig and ends it when
+     * the packet matches.
+     *
+     * @return zero when the packet matches, otherwise the cancel reason
+     */
+    int finish(int entityId, int x, int y, int z) {
+        DigState state = states.get(entityId);
+        long target = state != null ? state.target : BlockPositions.NO_POSITION;
+        if (target == BlockPositions.NO_POSITION) {
+            return BlockDigSanitizer.REASON_ORPHAN;
+        }
+        if (target != BlockPositions.pack(x, y, z)) {
+            return BlockDigSanitizer.REASON_MISMATCHED;
+        }
+        state.target = BlockPositions.NO_POSITION;
+        return 0;
+    }
+
+    void clear() {
+        states.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        states.remove(event.getPlayer().getEntityId());
+    }
+
+    private static final class DigState {
+        private volatile long target = BlockPositions.NO_POSITION;
+    }
+}
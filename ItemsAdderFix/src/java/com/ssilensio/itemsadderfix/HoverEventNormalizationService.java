@@ -0,0 +1,102 @@
+package com.ssilensio.itemsadderfix;
+
+import com.ssilensio.itemsadderfix.api.NormalizationService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * {@link NormalizationService} registered with Bukkit's services manager. It
+ * normalizes through the plugin's {@link NormalizationPipeline} with the
+ * current {@link PluginState}, so callers share the normalization cache,
+ * audit log and capture ring with the packet listener. Payloads are not added
+ * to traffic recordings because they are not packets.
+ */
+final class HoverEventNormalizationService implements NormalizationService {
+    static final String SOURCE = "API";
+    private static final HoverEventUuidNormalizer.NormalizationOptions DEFAULT_OPTIONS =
+            new HoverEventUuidNormalizer.NormalizationOptions(true, true);
+
+    private final NormalizationPipeline pipeline;
+    private final Supplier<PluginState> state;
+    private final PluginMetrics metrics;
+
+    HoverEventNormalizationService(NormalizationPipeline pipeline, Supplier<PluginState> state, PluginMetrics metrics) {
+        this.pipeline = pipeline;
+        this.state = state;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String normalize(String json) {
+        PluginState current = state.get();
+        if (current == null || json == null || json.isEmpty()) {
+            return normalizeWithoutState(json);
+        }
+        ComponentBatch batch = new ComponentBatch();
+        batch.add(SOURCE, json, null, 0);
+        normalize(batch, current);
+        return batch.normalized(0);
+    }
+
+    /**
+     * Normalizes the payloads as one {@link ComponentBatch}, so their fixes
+     * reach the audit log in a single pass.
+     */
+    @Override
+    public List<String> normalizeAll(List<String> json) {
+        PluginState current = state.get();
+        List<String> normalized = new ArrayList<>(json);
+        if (current == null) {
+            normalized.replaceAll(this::normalizeWithoutState);
+            return normalized;
+        }
+
+        ComponentBatch batch = new ComponentBatch();
+        for (int i = 0; i < json.size(); i++) {
+            String payload = json.get(i);
+            if (payload != null && !payload.isEmpty()) {
+                batch.add(SOURCE, payload, null, i);
+            }
+        }
+        normalize(batch, current);
+        for (int index = 0; index < batch.size(); index++) {
+            normalized.set(batch.slot(index), batch.normalized(index));
+        }
+        return normalized;
+    }
+
+    @Override
+    public boolean needsNormalization(String json) {
+        if (json == null || json.isEmpty()) {
+            return false;
+        }
+        PluginState current = state.get();
+        return pipeline.normalizer().needsNormalization(json,
+                current != null ? current.settings().normalizationOptions() : DEFAULT_OPTIONS);
+    }
+
+    private void normalize(ComponentBatch batch, PluginState current) {
+        pipeline.normalizeUnrecordedBatch(batch, current);
+        if (batch.failure() != null) {
+            throw batch.failure();
+        }
+        for (int index = 0; index < batch.size(); index++) {
+            metrics.recordServiceNormalization(batch.changed(index));
+        }
+    }
+
+    /**
+     * Between a disable and the services manager dropping us there is no
+     * state; callers still get a correct answer, just without the cache.
+     */
+    private String normalizeWithoutState(String json) {
+        if (json == null || json.isEmpty()) {
+            return json;
+        }
+        String normalized = pipeline.normalizer().normalize(json, DEFAULT_OPTIONS, null);
+        metrics.recordServiceNormalization(!normalized.equals(json));
+        return normalized;
+    }
+}
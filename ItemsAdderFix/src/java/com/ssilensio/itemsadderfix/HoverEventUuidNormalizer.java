@@ -6,31 +6,50 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonPrimitive;
+import com.ssilensio.itemsadderfix.util.UuidStringCache;
 
-import java.nio.ByteBuffer;
 import java.util.Objects;
-import java.util.UUID;
 import java.util.function.Consumer;
 
 final class HoverEventUuidNormalizer {
-    private final Gson gson = new Gson();
+    /**
+     * Identifies the conversion rules implemented here. Bump it whenever the
+     * output for a given input changes so persisted caches are discarded.
+     */
+    static final int RULES_VERSION = 2;
+
+    private static final Gson GSON = new Gson();
+    private static final UuidStringCache UUID_STRINGS = new UuidStringCache(1024);
 
     String normalize(String json,
                      NormalizationOptions options,
                      Consumer<NormalizationRecord> recordConsumer) {
-        JsonElement element;
-        try {
-            element = gson.fromJson(json, JsonElement.class);
-        } catch (JsonParseException ex) {
-            return json;
-        }
-
-        if (element == null || element.isJsonNull()) {
+        JsonElement element = parse(json);
+        if (element == null) {
             return json;
         }
 
         boolean changed = normalizeElement(element, options, recordConsumer);
-        return changed ? gson.toJson(element) : json;
+        return changed ? GSON.toJson(element) : json;
+    }
+
+    /**
+     * Returns whether {@link #normalize} would rewrite the payload. The walk
+     * only touches a private parse tree and nothing is serialized.
+     */
+    boolean needsNormalization(String json, NormalizationOptions options) {
+        JsonElement element = parse(json);
+        return element != null && normalizeElement(element, options, null);
+    }
+
+    private static JsonElement parse(String json) {
+        JsonElement element;
+        try {
+            element = GSON.fromJson(json, JsonElement.class);
+        } catch (JsonParseException ex) {
+            return null;
+        }
+        return element == null || element.isJsonNull() ? null : element;
     }
 
     private boolean normalizeElement(JsonElement element,
@@ -68,13 +87,16 @@ final class HoverEventUuidNormalizer {
         boolean changed = false;
 
         String action = getString(hoverEvent, "action");
-        if (action != null && "show_entity".equalsIgnoreCase(action)) {
+        boolean showEntity = action != null && "show_entity".equalsIgnoreCase(action);
+        if (showEntity) {
             changed |= normalizeShowEntityPayload(hoverEvent, "value", options, recordConsumer);
             changed |= normalizeShowEntityPayload(hoverEvent, "contents", options, recordConsumer);
         }
 
+        // Other actions, show_text in particular, can carry components with
+        // their own show_entity hover events.
         for (String key : hoverEvent.keySet()) {
-            if ("value".equals(key) || "contents".equals(key)) {
+            if (showEntity && ("value".equals(key) || "contents".equals(key))) {
                 continue;
             }
             changed |= normalizeElement(hoverEvent.get(key), options, recordConsumer);
@@ -100,8 +122,9 @@ final class HoverEventUuidNormalizer {
             for (JsonElement element : payload.getAsJsonArray()) {
                 if (element.isJsonObject()) {
                     changed |= normalizeEntityTooltip(element.getAsJsonObject(), options, recordConsumer);
+                } else {
+                    changed |= normalizeElement(element, options, recordConsumer);
                 }
-                changed |= normalizeElement(element, options, recordConsumer);
             }
         } else {
             changed |= normalizeElement(payload, options, recordConsumer);
@@ -119,21 +142,27 @@ final class HoverEventUuidNormalizer {
             JsonElement idElement = tooltip.get("id");
             String uuidString = extractUuid(idElement, options);
             if (uuidString != null) {
-                String original = gson.toJson(idElement);
                 tooltip.addProperty("id", uuidString);
                 changed = true;
 
                 if (recordConsumer != null) {
-                    recordConsumer.accept(new NormalizationRecord(original, uuidString));
+                    recordConsumer.accept(new NormalizationRecord(idElement, uuidString));
                 }
             }
         }
 
+        // Tooltip objects double as text components inside show_entity arrays,
+        // so a nested hoverEvent is handled here rather than by a second walk.
         for (String key : tooltip.keySet()) {
             if ("id".equals(key)) {
                 continue;
             }
-            changed |= normalizeElement(tooltip.get(key), options, recordConsumer);
+            JsonElement value = tooltip.get(key);
+            if ("hoverEvent".equals(key) && value != null && value.isJsonObject()) {
+                changed |= normalizeHoverEvent(value.getAsJsonObject(), options, recordConsumer);
+            } else {
+                changed |= normalizeElement(value, options, recordConsumer);
+            }
         }
 
         return changed;
@@ -168,7 +197,7 @@ final class HoverEventUuidNormalizer {
                 try {
                     long most = object.get("most").getAsLong();
                     long least = object.get("least").getAsLong();
-                    return new UUID(most, least).toString();
+                    return UUID_STRINGS.get(most, least);
                 } catch (RuntimeException ignored) {
                     return null;
                 }
@@ -191,43 +220,63 @@ final class HoverEventUuidNormalizer {
         Objects.requireNonNull(array, "array");
 
         int size = array.size();
-        if (size == 4) {
-            long[] parts = new long[4];
-            for (int i = 0; i < 4; i++) {
-                JsonElement part = array.get(i);
-                if (!part.isJsonPrimitive() || !part.getAsJsonPrimitive().isNumber()) {
-                    return null;
-                }
-                long value = part.getAsLong();
-                parts[i] = value & 0xFFFFFFFFL;
-            }
-
-            long most = (parts[0] << 32) | parts[1];
-            long least = (parts[2] << 32) | parts[3];
-            return new UUID(most, least).toString();
+        if (size != 4 && size != 16) {
+            return null;
         }
 
-        if (size == 16) {
-            byte[] bytes = new byte[16];
-            for (int i = 0; i < 16; i++) {
-                JsonElement part = array.get(i);
-                if (!part.isJsonPrimitive() || !part.getAsJsonPrimitive().isNumber()) {
-                    return null;
-                }
-                long value = part.getAsLong();
-                bytes[i] = (byte) (value & 0xFF);
+        int bitsPerPart = size == 4 ? 32 : 8;
+        long partMask = size == 4 ? 0xFFFFFFFFL : 0xFFL;
+        int half = size / 2;
+        long most = 0;
+        long least = 0;
+        for (int i = 0; i < size; i++) {
+            JsonElement part = array.get(i);
+            if (!part.isJsonPrimitive() || !part.getAsJsonPrimitive().isNumber()) {
+                return null;
+            }
+            long value = part.getAsLong() & partMask;
+            if (i < half) {
+                most = (most << bitsPerPart) | value;
+            } else {
+                least = (least << bitsPerPart) | value;
             }
-
-            ByteBuffer buffer = ByteBuffer.wrap(bytes);
-            long most = buffer.getLong();
-            long least = buffer.getLong();
-            return new UUID(most, least).toString();
         }
-
-        return null;
+        return UUID_STRINGS.get(most, least);
     }
 
     record NormalizationOptions(boolean convertIntArrayPayloads, boolean convertUuidObjectPayloads) {}
 
-    record NormalizationRecord(String originalPayload, String normalizedUuid) {}
+    /**
+     * One converted UUID. The original payload text is only rendered when
+     * somebody asks for it, which in practice means audit or debug logging.
+     */
+    static final class NormalizationRecord {
+        private final JsonElement originalElement;
+        private final String normalizedUuid;
+        private String originalPayload;
+
+        NormalizationRecord(String originalPayload, String normalizedUuid) {
+            this.originalElement = null;
+            this.originalPayload = originalPayload;
+            this.normalizedUuid = normalizedUuid;
+        }
+
+        private NormalizationRecord(JsonElement originalElement, String normalizedUuid) {
+            this.originalElement = originalElement;
+            this.normalizedUuid = normalizedUuid;
+        }
+
+        String originalPayload() {
+            String payload = originalPayload;
+            if (payload == null && originalElement != null) {
+                payload = GSON.toJson(originalElement);
+                originalPayload = payload;
+            }
+            return payload;
+        }
+
+        String normalizedUuid() {
+            return normalizedUuid;
+        }
+    }
 }
@@ -0,0 +1,184 @@
+package com.ssilensio.itemsadderfix;
+
+import com.ssilensio.itemsadderfix.util.ConcurrentIntObjectMap;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Remembers the last component sent to each player on every HUD channel
+ * (action bar, titles, tab list, boss bars, scoreboard objectives and teams)
+ * together with its normalized form. HUD plugins resend the same text every
+ * few ticks; an unchanged resend is answered from here with a hash and
+ * equality check instead of parsing the JSON again. Memos exist from join
+ * to quit; packets for players without one are normalized as usual.
+ */
+final class HudChannelMemo implements Listener {
+    private static final int MAX_SLOTS = 4;
+    private static final int MAX_QUALIFIED_ENTRIES = 256;
+
+    /**
+     * HUD packets by ProtocolLib packet type name. Channels that exist once
+     * per player are unqualified; boss bars, objectives, teams and scores are
+     * qualified by their id or name, the first field of
+     * {@link #qualifierType()} in the packet.
+     */
+    enum Channel {
+        ACTION_BAR(null),
+        TITLE(null),
+        SUBTITLE(null),
+        TAB_LIST(null),
+        BOSS_BAR(UUID.class),
+        SCOREBOARD_OBJECTIVE(String.class),
+        SCOREBOARD_TEAM(String.class),
+        SCOREBOARD_SCORE(String.class);
+
+        private final Class<?> qualifierType;
+
+        Channel(Class<?> qualifierType) {
+            this.qualifierType = qualifierType;
+        }
+
+        Class<?> qualifierType() {
+            return qualifierType;
+        }
+
+        static Channel of(String packetType) {
+            return switch (packetType) {
+                case "SET_ACTION_BAR_TEXT" -> ACTION_BAR;
+                case "SET_TITLE_TEXT" -> TITLE;
+                case "SET_SUBTITLE_TEXT" -> SUBTITLE;
+                case "PLAYER_LIST_HEADER_FOOTER" -> TAB_LIST;
+                case "BOSS" -> BOSS_BAR;
+                case "SCOREBOARD_OBJECTIVE" -> SCOREBOARD_OBJECTIVE;
+                case "SCOREBOARD_TEAM" -> SCOREBOARD_TEAM;
+                case "SCOREBOARD_SCORE" -> SCOREBOARD_SCORE;
+                default -> null;
+            };
+        }
+    }
+
+    private final ConcurrentIntObjectMap<PlayerMemo> players = new ConcurrentIntObjectMap<>();
+
+    /**
+     * Returns the memo of an online player, or {@code null} once the player
+     * has quit, so a HUD packet still in flight cannot bring it back.
+     */
+    PlayerMemo player(int entityId) {
+        return players.get(entityId);
+    }
+
+    void track(int entityId) {
+        players.computeIfAbsent(entityId, ignored -> new PlayerMemo());
+    }
+
+    void seed(Iterable<? extends Player> online) {
+        for (Player player : online) {
+            track(player.getEntityId());
+        }
+    }
+
+    int players() {
+        return players.size();
+    }
+
+    void clear() {
+        players.clear();
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        track(event.getPlayer().getEntityId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        players.remove(event.getPlayer().getEntityId());
+    }
+
+    /**
+     * Memo of one player. Components are identified by channel, qualifier and
+     * their position in the packet's {@link ComponentBatch}. Entries are
+     * dropped when the conversion options change, since the remembered output
+     * depends on them.
+     */
+    static final class PlayerMemo {
+        private final AtomicReferenceArray<Entry> unqualified =
+                new AtomicReferenceArray<>(Channel.values().length * MAX_SLOTS);
+        private final Map<Key, Entry> qualified = new ConcurrentHashMap<>();
+        private volatile HoverEventUuidNormalizer.NormalizationOptions options;
+
+        /**
+         * Fills in the normalized payload of every batch component that was
+         * sent unchanged on the same channel last time. Returns the number of
+         * components answered from the memo.
+         */
+        int resolve(ComponentBatch batch,
+                    Channel channel,
+                    Object qualifier,
+                    HoverEventUuidNormalizer.NormalizationOptions current) {
+            if (!current.equals(options)) {
+                reset(current);
+                return 0;
+            }
+            int hits = 0;
+            for (int index = 0; index < batch.size() && index < MAX_SLOTS; index++) {
+                Entry entry = get(channel, qualifier, index);
+                String json = batch.json(index);
+                if (entry != null && entry.hash == json.hashCode() && entry.input.equals(json)) {
+                    batch.setNormalized(index, entry.output);
+                    hits++;
+                }
+            }
+            return hits;
+        }
+
+        /**
+         * Stores the results of a normalized batch for the next resend.
+         */
+        void remember(ComponentBatch batch, Channel channel, Object qualifier) {
+            if (channel.qualifierType() != null && qualifier == null) {
+                return;
+            }
+            for (int index = 0; index < batch.size() && index < MAX_SLOTS; index++) {
+                String json = batch.json(index);
+                Entry entry = new Entry(json.hashCode(), json, batch.normalized(index));
+                if (channel.qualifierType() == null) {
+                    unqualified.set(channel.ordinal() * MAX_SLOTS + index, entry);
+                } else {
+                    if (qualified.size() >= MAX_QUALIFIED_ENTRIES) {
+                        qualified.clear();
+                    }
+                    qualified.put(new Key(channel, qualifier, index), entry);
+                }
+            }
+        }
+
+        private Entry get(Channel channel, Object qualifier, int index) {
+            if (channel.qualifierType() == null) {
+                return unqualified.get(channel.ordinal() * MAX_SLOTS + index);
+            }
+            return qualifier != null ? qualified.get(new Key(channel, qualifier, index)) : null;
+        }
+
+        private void reset(HoverEventUuidNormalizer.NormalizationOptions current) {
+            for (int i = 0; i < unqualified.length(); i++) {
+                unqualified.set(i, null);
+            }
+            qualified.clear();
+            options = current;
+        }
+    }
+
+    private record Key(Channel channel, Object qualifier, int slot) {}
+
+    private record Entry(int hash, String input, String output) {}
+}
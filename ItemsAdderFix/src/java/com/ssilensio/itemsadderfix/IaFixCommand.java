@@ -0,0 +1,85 @@
+package com.ssilensio.itemsadderfix;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Handles {@code /iafix}. Subcommands are dispatched by name so new admin
+ * actions only need another case here.
+ */
+final class IaFixCommand implements TabExecutor {
+    private static final List<String> SUBCOMMANDS = List.of("reload", "capture", "debug");
+    private static final List<String> CAPTURE_ACTIONS = List.of("status", "dump", "freeze", "resume");
+    private static final List<String> DEBUG_ACTIONS = List.of("status", "player", "packet", "clear");
+
+    private final ItemsAdderFix plugin;
+
+    IaFixCommand(ItemsAdderFix plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length == 0) {
+            sender.sendMessage("Usage: /" + label + " <" + String.join("|", SUBCOMMANDS) + ">");
+            return true;
+        }
+
+        switch (args[0].toLowerCase(Locale.ROOT)) {
+            case "reload" -> {
+                sender.sendMessage("Reloading ItemsAdderFix configuration...");
+                plugin.reloadSettings(sender);
+            }
+            case "capture" -> {
+                String action = args.length > 1 ? args[1].toLowerCase(Locale.ROOT) : "status";
+                if (!CAPTURE_ACTIONS.contains(action)) {
+                    sender.sendMessage("Usage: /" + label + " capture <" + String.join("|", CAPTURE_ACTIONS) + ">");
+                    return true;
+                }
+                plugin.captureCommand(sender, action);
+            }
+            case "debug" -> {
+                String action = args.length > 1 ? args[1].toLowerCase(Locale.ROOT) : "status";
+                boolean needsValue = "player".equals(action) || "packet".equals(action);
+                if (!DEBUG_ACTIONS.contains(action) || (needsValue && args.length < 3)) {
+                    sender.sendMessage("Usage: /" + label + " debug <status|player <name>|packet <type>|clear>");
+                    return true;
+                }
+                plugin.debugCommand(sender, action, needsValue ? args[2] : null);
+            }
+            default -> sender.sendMessage("Unknown subcommand '" + args[0] + "'. Usage: /" + label
+                    + " <" + String.join("|", SUBCOMMANDS) + ">");
+        }
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        if (args.length == 1) {
+            return complete(SUBCOMMANDS, args[0]);
+        }
+        if (args.length == 2 && "capture".equalsIgnoreCase(args[0])) {
+            return complete(CAPTURE_ACTIONS, args[1]);
+        }
+        if (args.length == 2 && "debug".equalsIgnoreCase(args[0])) {
+            return complete(DEBUG_ACTIONS, args[1]);
+        }
+        return new ArrayList<>();
+    }
+
+    private static List<String> complete(List<String> options, String input) {
+        List<String> matches = new ArrayList<>();
+        String prefix = input.toLowerCase(Locale.ROOT);
+        for (String option : options) {
+            if (option.startsWith(prefix)) {
+                matches.add(option);
+            }
+        }
+        return matches;
+    }
+}
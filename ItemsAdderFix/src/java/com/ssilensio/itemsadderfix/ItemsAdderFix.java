@@ -9,39 +9,70 @@ import com.comphenix.protocol.events.PacketContainer;
 import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.reflect.StructureModifier;
 import com.comphenix.protocol.wrappers.BlockPosition;
-import com.comphenix.protocol.wrappers.EnumWrappers;
 import com.comphenix.protocol.wrappers.EnumWrappers.PlayerDigType;
+import com.comphenix.protocol.wrappers.MovingObjectPositionBlock;
 import com.comphenix.protocol.wrappers.WrappedChatComponent;
-import com.ssilensio.itemsadderfix.logging.HandledErrorLogger;
-import org.bukkit.Location;
-import org.bukkit.World;
+import com.ssilensio.itemsadderfix.api.NormalizationService;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.Objects;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 public final class ItemsAdderFix extends JavaPlugin {
-    private static final String CONFIG_LOGGING_ENABLED = "logging.handled_errors.enabled";
-    private static final String CONFIG_LOGGING_FILE = "logging.handled_errors.file";
-    private static final String CONFIG_LOGGING_INCLUDE_ORIGINAL = "logging.handled_errors.include_original_payload";
-    private static final String CONFIG_LOGGING_INCLUDE_NORMALIZED = "logging.handled_errors.include_normalized_payload";
+    private static final DateTimeFormatter CAPTURE_FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String SUBSCRIPTION_HOVER = "hover_event_normalizer";
+    private static final String SUBSCRIPTION_DIG = "block_dig";
+    private static final String SUBSCRIPTION_USE_ITEM_ON = "use_item_on";
+    private static final String DIG_PACKET_TYPE = "BLOCK_DIG";
+    private static final ThreadLocal<Set<Object>> BUNDLED_PACKETS =
+            ThreadLocal.withInitial(() -> Collections.newSetFromMap(new IdentityHashMap<>()));
 
     private ProtocolManager protocolManager;
-    private final Set<PacketAdapter> listeners = new LinkedHashSet<>();
+    private final Map<String, PacketAdapter> subscriptions = new LinkedHashMap<>();
     private HoverEventUuidNormalizer normalizer;
-    private final BlockDigSanitizer blockDigSanitizer = new BlockDigSanitizer();
-    private HandledErrorLogger handledErrorLogger;
-    private boolean debugLogging;
-    private boolean logFixes;
-    private boolean convertIntArrayPayloads;
-    private boolean convertUuidObjectPayloads;
-    private boolean normalizationEnabled;
-    private boolean preventUnloadedChunkDig;
+    private NormalizationPipeline pipeline;
+    private NettyComponentInjector nettyInjector;
+    private boolean nettyInjectionActive;
+    private boolean nettyInjectionUnavailable;
+    private final PluginMetrics metrics = new PluginMetrics();
+    private final PluginScheduler scheduler = new PluginScheduler(this);
+    private final LoadedChunkIndex loadedChunks = new LoadedChunkIndex();
+    private final PlayerPositionTracker positionTracker = new PlayerPositionTracker(loadedChunks);
+    private final HudChannelMemo hudMemo = new HudChannelMemo();
+    private DigAcknowledger digAcknowledger;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private final AtomicReference<PluginState> pendingReload = new AtomicReference<>();
+    private boolean chunkTrackingRegistered;
+    private volatile PluginState state;
+    private volatile long lastRateLimitSummary;
+    private volatile long lastCacheSave;
 
     private static final String ANSI_BOLD = "\u001B[1m";
     private static final String ANSI_RESET = "\u001B[0m";
@@ -64,42 +95,47 @@ public final class ItemsAdderFix extends JavaPlugin {
         saveDefaultConfig();
         reloadConfig();
 
-        if (!getConfig().getBoolean("enabled", true)) {
+        PluginSettings settings = PluginSettings.load(getConfig());
+        if (!settings.enabled()) {
             getLogger().info("Plugin disabled via configuration. No packets will be processed.");
             getServer().getPluginManager().disablePlugin(this);
             return;
         }
 
-        debugLogging = getConfig().getBoolean("debug", false);
-        normalizationEnabled = getConfig().getBoolean("normalization.hover_event_uuid.enabled", true);
-        convertIntArrayPayloads = getConfig().getBoolean("normalization.hover_event_uuid.convert.int_array", true);
-        convertUuidObjectPayloads = getConfig().getBoolean("normalization.hover_event_uuid.convert.uuid_object", true);
-        preventUnloadedChunkDig = getConfig().getBoolean("sanitization.prevent_unloaded_chunk_dig", true);
-
-        boolean includeOriginal = getConfig().getBoolean(CONFIG_LOGGING_INCLUDE_ORIGINAL, true);
-        boolean includeNormalized = getConfig().getBoolean(CONFIG_LOGGING_INCLUDE_NORMALIZED, true);
-        String fileName = getConfig().getString(CONFIG_LOGGING_FILE, "handled-errors.xml");
-        logFixes = getConfig().getBoolean(CONFIG_LOGGING_ENABLED, true) && (includeOriginal || includeNormalized);
-
-        if (logFixes) {
-            handledErrorLogger = new HandledErrorLogger(getLogger(), getDataFolder(), fileName, includeOriginal, includeNormalized);
-            if (!handledErrorLogger.initialize()) {
-                handledErrorLogger = null;
-                logFixes = false;
-            }
-        }
-
         protocolManager = ProtocolLibrary.getProtocolManager();
         normalizer = new HoverEventUuidNormalizer();
+        pipeline = new NormalizationPipeline(normalizer, metrics);
+        getServer().getServicesManager().register(NormalizationService.class,
+                new HoverEventNormalizationService(pipeline, () -> state, metrics), this, ServicePriority.Normal);
+        getServer().getPluginManager().registerEvents(hudMemo, this);
+        hudMemo.seed(getServer().getOnlinePlayers());
+        if (PacketType.Play.Server.BLOCK_CHANGED_ACK.isSupported()) {
+            digAcknowledger = new DigAcknowledger(scheduler::runForEntity, this::sendDigAcknowledgement);
+            getServer().getPluginManager().registerEvents(digAcknowledger, this);
+        }
 
-        if (normalizationEnabled) {
-            registerHoverEventNormalizer();
-        } else {
+        applyState(PluginState.build(settings, null, normalizer, getLogger(), getDataFolder()));
+        if (!settings.normalizationEnabled()) {
             getLogger().info("Hover event normalization is disabled via configuration.");
         }
 
-        if (preventUnloadedChunkDig) {
-            registerBlockDigSanitizer();
+        lastRateLimitSummary = System.nanoTime();
+        lastCacheSave = lastRateLimitSummary;
+        scheduler.runAsyncAtFixedRate(this::tickRateLimitSummary, 1, TimeUnit.SECONDS);
+        scheduler.runAsyncAtFixedRate(this::tickCacheSave, 1, TimeUnit.SECONDS);
+        scheduler.runAsyncAtFixedRate(this::flushRecorder, 1, TimeUnit.SECONDS);
+        scheduler.runAsyncAtFixedRate(this::drainDebugLog, 1, TimeUnit.SECONDS);
+        scheduler.runAsyncAtFixedRate(this::tickMetricsExport, 1, TimeUnit.SECONDS);
+
+        if (settings.warmup().enabled()) {
+            startWarmup(settings.warmup().iterations());
+        }
+
+        PluginCommand command = getCommand("iafix");
+        if (command != null) {
+            IaFixCommand executor = new IaFixCommand(this);
+            command.setExecutor(executor);
+            command.setTabCompleter(executor);
         }
 
         printBanner();
@@ -107,11 +143,166 @@ public final class ItemsAdderFix extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        scheduler.cancelAll();
+        getServer().getServicesManager().unregisterAll(this);
         if (protocolManager != null) {
-            for (PacketAdapter listener : listeners) {
+            for (PacketAdapter listener : subscriptions.values()) {
                 protocolManager.removePacketListener(listener);
             }
-            listeners.clear();
+            subscriptions.clear();
+        }
+        stopNettyInjection();
+        loadedChunks.clear();
+        positionTracker.clear();
+        hudMemo.clear();
+        if (digAcknowledger != null) {
+            digAcknowledger.clear();
+        }
+        PluginState current = state;
+        if (current != null) {
+            saveNormalizationCache(current);
+            if (current.trafficRecorder() != null) {
+                closeRecorder(current.trafficRecorder());
+            }
+            if (current.debugLog() != null) {
+                current.debugLog().drain(System.nanoTime());
+            }
+            if (current.metricsExporter() != null) {
+                current.metricsExporter().flush(metrics, System.currentTimeMillis());
+                current.metricsExporter().close();
+            }
+            if (current.digRateLimiter() != null) {
+                current.digRateLimiter().clear();
+            }
+            if (current.digSequenceTracker() != null) {
+                current.digSequenceTracker().clear();
+            }
+        }
+        state = null;
+        PluginState pending = pendingReload.getAndSet(null);
+        if (pending != null) {
+            discardState(pending, current);
+        }
+    }
+
+    /**
+     * Re-reads config.yml off the server thread and swaps the parsed result in
+     * on the global thread. Listeners keep using the previous snapshot until
+     * the swap, so there is no window in which packets go unprotected.
+     */
+    void reloadSettings(CommandSender sender) {
+        if (!reloading.compareAndSet(false, true)) {
+            sender.sendMessage("ItemsAdderFix is already reloading.");
+            return;
+        }
+
+        File configFile = new File(getDataFolder(), "config.yml");
+        scheduler.runAsync(() -> {
+            PluginState previous = state;
+            PluginState next;
+            try {
+                YamlConfiguration config = new YamlConfiguration();
+                config.load(configFile);
+                next = PluginState.build(PluginSettings.load(config), previous, normalizer, getLogger(), getDataFolder());
+            } catch (IOException | InvalidConfigurationException | RuntimeException ex) {
+                reloading.set(false);
+                getLogger().log(Level.WARNING, "Failed to reload config.yml; keeping the previous settings.", ex);
+                sender.sendMessage("ItemsAdderFix reload failed: " + ex.getMessage() + ". Previous settings are still active.");
+                return;
+            }
+
+            // Parked so onDisable can close it if the plugin goes away before the swap.
+            pendingReload.set(next);
+            if (!isEnabled()) {
+                if (pendingReload.compareAndSet(next, null)) {
+                    discardState(next, previous);
+                }
+                reloading.set(false);
+                return;
+            }
+
+            scheduler.runGlobal(() -> {
+                try {
+                    if (!pendingReload.compareAndSet(next, null)) {
+                        return;
+                    }
+                    if (state == null) {
+                        discardState(next, previous);
+                        return;
+                    }
+                    applyState(next);
+                    sender.sendMessage(next.settings().enabled()
+                            ? "ItemsAdderFix configuration reloaded."
+                            : "ItemsAdderFix configuration reloaded; packet processing is paused until enabled is set to true.");
+                } finally {
+                    reloading.set(false);
+                }
+            });
+        });
+    }
+
+    void captureCommand(CommandSender sender, String action) {
+        PluginState current = state;
+        CaptureRing capture = current != null ? current.captureRing() : null;
+        if (capture == null) {
+            sender.sendMessage("Payload capture is disabled in config.yml.");
+            return;
+        }
+
+        switch (action) {
+            case "freeze" -> {
+                capture.freeze();
+                sender.sendMessage("Payload capture frozen.");
+            }
+            case "resume" -> {
+                capture.resume();
+                sender.sendMessage("Payload capture resumed.");
+            }
+            case "dump" -> {
+                Path file = getDataFolder().toPath().resolve("captures")
+                        .resolve("capture-" + CAPTURE_FILE_TIME.format(LocalDateTime.now()) + ".ndjson");
+                scheduler.runAsync(() -> {
+                    try {
+                        int written = capture.dump(file);
+                        sender.sendMessage("Wrote " + written + " captured payloads to " + file + ".");
+                    } catch (IOException ex) {
+                        getLogger().log(Level.WARNING, "Unable to write capture dump " + file, ex);
+                        sender.sendMessage("Unable to write capture dump: " + ex.getMessage());
+                    }
+                });
+            }
+            default -> sender.sendMessage("Payload capture is " + (capture.isFrozen() ? "frozen" : "running")
+                    + ": " + Math.min(capture.captured(), capture.capacity()) + "/" + capture.capacity()
+                    + " slots used, " + capture.captured() + " payloads captured since enable.");
+        }
+    }
+
+    void debugCommand(CommandSender sender, String action, String value) {
+        PluginState current = state;
+        DebugLog debugLog = current != null ? current.debugLog() : null;
+        if (debugLog == null) {
+            sender.sendMessage("Debug logging is disabled; set debug: true in config.yml and run /iafix reload.");
+            return;
+        }
+
+        switch (action) {
+            case "player" -> {
+                debugLog.addPlayer(value);
+                sender.sendMessage("Debug output now includes player " + value + ".");
+            }
+            case "packet" -> {
+                debugLog.addPacketType(value);
+                sender.sendMessage("Debug output now includes packet type " + value.toUpperCase(Locale.ROOT) + ".");
+            }
+            case "clear" -> {
+                debugLog.clearFilters();
+                sender.sendMessage("Debug filters cleared; all players and packet types are logged.");
+            }
+            default -> sender.sendMessage("Debug logging is on. Players: "
+                    + (debugLog.players().isEmpty() ? "all" : String.join(", ", debugLog.players()))
+                    + "; packet types: "
+                    + (debugLog.packetTypes().isEmpty() ? "all" : String.join(", ", debugLog.packetTypes()))
+                    + "; " + debugLog.queued() + " messages queued.");
         }
     }
 
@@ -120,95 +311,489 @@ public final class ItemsAdderFix extends JavaPlugin {
         return plugin != null && plugin.isEnabled();
     }
 
-    private void registerHoverEventNormalizer() {
+    private void applyState(PluginState next) {
+        PluginState previous = state;
+        PluginSettings settings = next.settings();
+
+        if (settings.sanitization().needsChunkTracking() && !chunkTrackingRegistered) {
+            registerChunkTracking();
+        }
+        swapListener(previous != null ? previous.digRateLimiter() : null, next.digRateLimiter());
+        swapListener(previous != null ? previous.digSequenceTracker() : null, next.digSequenceTracker());
+
+        state = next;
+        updateSubscriptions(settings);
+
+        if (previous != null) {
+            if (previous.digRateLimiter() != null && previous.digRateLimiter() != next.digRateLimiter()) {
+                previous.digRateLimiter().clear();
+            }
+            if (previous.digSequenceTracker() != null && next.digSequenceTracker() == null) {
+                previous.digSequenceTracker().clear();
+            }
+            if (previous.debugLog() != null && previous.debugLog() != next.debugLog()) {
+                DebugLog debugLog = previous.debugLog();
+                scheduler.runAsync(() -> debugLog.drain(System.nanoTime()));
+            }
+            if (previous.trafficRecorder() != null && previous.trafficRecorder() != next.trafficRecorder()) {
+                TrafficRecorder recorder = previous.trafficRecorder();
+                scheduler.runAsync(() -> closeRecorder(recorder));
+            }
+            if (previous.normalizationCache() != null && previous.normalizationCache() != next.normalizationCache()) {
+                scheduler.runAsync(() -> saveNormalizationCache(previous));
+            }
+            if (previous.metricsExporter() != null && previous.metricsExporter() != next.metricsExporter()) {
+                MetricsExporter exporter = previous.metricsExporter();
+                scheduler.runAsync(exporter::close);
+            }
+        }
+    }
+
+    /**
+     * Closes the components of a state that never went live. Components it
+     * shares with {@code kept} belong to that state and are left alone.
+     */
+    private void discardState(PluginState discarded, PluginState kept) {
+        TrafficRecorder recorder = discarded.trafficRecorder();
+        if (recorder != null && (kept == null || kept.trafficRecorder() != recorder)) {
+            closeRecorder(recorder);
+        }
+        MetricsExporter exporter = discarded.metricsExporter();
+        if (exporter != null && (kept == null || kept.metricsExporter() != exporter)) {
+            exporter.close();
+        }
+        DebugLog debugLog = discarded.debugLog();
+        if (debugLog != null && (kept == null || kept.debugLog() != debugLog)) {
+            debugLog.drain(System.nanoTime());
+        }
+    }
+
+    private void swapListener(Listener previous, Listener next) {
+        if (previous == next) {
+            return;
+        }
+        if (next != null) {
+            getServer().getPluginManager().registerEvents(next, this);
+        }
+        if (previous != null) {
+            HandlerList.unregisterAll(previous);
+        }
+    }
+
+    /**
+     * Brings the registered ProtocolLib listeners in line with the settings.
+     * Listeners whose subscription is unchanged stay registered; new ones are
+     * added before stale ones are removed.
+     */
+    private void updateSubscriptions(PluginSettings settings) {
+        Map<String, Supplier<PacketAdapter>> wanted = new LinkedHashMap<>();
+        boolean netty = settings.enabled()
+                && settings.normalizationEnabled()
+                && settings.normalizationInjection() == PluginSettings.InjectionMode.NETTY
+                && startNettyInjection();
+        if (settings.enabled()) {
+            PluginSettings.SanitizationSettings sanitization = settings.sanitization();
+            if (settings.normalizationEnabled() && !netty) {
+                wanted.put(SUBSCRIPTION_HOVER, this::createHoverEventNormalizer);
+            }
+            if (sanitization.needsDigListener()) {
+                wanted.put(SUBSCRIPTION_DIG, this::createBlockDigSanitizer);
+            }
+            if (sanitization.preventUnloadedChunkUseItemOn()) {
+                wanted.put(SUBSCRIPTION_USE_ITEM_ON, this::createInteractionSanitizer);
+            }
+        }
+
+        for (Map.Entry<String, Supplier<PacketAdapter>> entry : wanted.entrySet()) {
+            if (!subscriptions.containsKey(entry.getKey())) {
+                PacketAdapter adapter = entry.getValue().get();
+                protocolManager.addPacketListener(adapter);
+                subscriptions.put(entry.getKey(), adapter);
+            }
+        }
+
+        Iterator<Map.Entry<String, PacketAdapter>> iterator = subscriptions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, PacketAdapter> entry = iterator.next();
+            if (!wanted.containsKey(entry.getKey())) {
+                protocolManager.removePacketListener(entry.getValue());
+                iterator.remove();
+            }
+        }
+        if (!netty) {
+            stopNettyInjection();
+        }
+    }
+
+    /**
+     * Switches hover event normalization to the Netty pipeline handler.
+     * Returns {@code false} when the handler cannot be set up on this server,
+     * in which case the ProtocolLib listener is used instead.
+     */
+    private boolean startNettyInjection() {
+        if (nettyInjectionActive) {
+            return true;
+        }
+        if (nettyInjector == null) {
+            if (nettyInjectionUnavailable) {
+                return false;
+            }
+            try {
+                nettyInjector = new NettyComponentInjector(getLogger(), pipeline, () -> state);
+            } catch (RuntimeException | LinkageError ex) {
+                nettyInjectionUnavailable = true;
+                getLogger().log(Level.WARNING, "Netty injection is not supported on this server; "
+                        + "hover events are normalized through ProtocolLib instead.", ex);
+                return false;
+            }
+        }
+        getServer().getPluginManager().registerEvents(nettyInjector, this);
+        nettyInjector.start(getServer().getOnlinePlayers());
+        nettyInjectionActive = true;
+        getLogger().info("Normalizing hover events in the Netty pipeline (" + nettyInjector.packetClasses()
+                + " packet classes carry components).");
+        return true;
+    }
+
+    private void stopNettyInjection() {
+        if (!nettyInjectionActive) {
+            return;
+        }
+        nettyInjectionActive = false;
+        HandlerList.unregisterAll(nettyInjector);
+        nettyInjector.close(getServer().getOnlinePlayers());
+    }
+
+    private PacketAdapter createHoverEventNormalizer() {
         Set<PacketType> monitoredTypes = collectServerPlayPackets();
-        HoverEventUuidNormalizer.NormalizationOptions options = new HoverEventUuidNormalizer.NormalizationOptions(
-                convertIntArrayPayloads,
-                convertUuidObjectPayloads
-        );
 
-        PacketAdapter adapter = new PacketAdapter(this, ListenerPriority.LOWEST, monitoredTypes.toArray(PacketType[]::new)) {
+        return new PacketAdapter(this, ListenerPriority.LOWEST, monitoredTypes.toArray(PacketType[]::new)) {
             @Override
             public void onPacketSending(PacketEvent event) {
+                PluginState current = state;
+                if (current == null || !current.settings().normalizationEnabled()) {
+                    return;
+                }
                 try {
-                    normalizePacket(event.getPacket(), options);
+                    normalizePacket(event, current);
                 } catch (Exception ex) {
                     getLogger().log(Level.SEVERE, "Failed to normalize packet " + event.getPacketType(), ex);
                 }
             }
         };
-
-        registerListener(adapter);
     }
 
-    private void registerBlockDigSanitizer() {
-        PacketAdapter adapter = new PacketAdapter(this, ListenerPriority.LOWEST, PacketType.Play.Client.BLOCK_DIG) {
+    private PacketAdapter createBlockDigSanitizer() {
+        return new PacketAdapter(this, ListenerPriority.LOWEST, PacketType.Play.Client.BLOCK_DIG) {
             @Override
             public void onPacketReceiving(PacketEvent event) {
-                if (event.isCancelled()) {
-                    return;
+                PluginState current = state;
+                if (current != null && !event.isCancelled() && !event.isPlayerTemporary() && event.getPlayer() != null) {
+                    handleDigPacket(event, current);
                 }
-                PlayerDigType digType = event.getPacket().getPlayerDigTypes().readSafely(0);
-                StructureModifier<BlockPosition> positionModifier = event.getPacket().getBlockPositionModifier();
-                BlockPosition position = positionModifier != null ? positionModifier.readSafely(0) : null;
-                BlockDigSanitizer.Result result = blockDigSanitizer.evaluate(
-                        digType,
-                        position,
-                        chunkChecker(event.getPlayer()),
-                        blockPositionProvider(event.getPlayer())
-                );
-
-                if (result.shouldCancel()) {
-                    event.setCancelled(true);
-                    if (debugLogging && event.getPlayer() != null) {
-                        getLogger().info(() -> "Cancelled dig packet from " + event.getPlayer().getName()
-                                + " at " + position + " because the chunk is not loaded.");
-                    }
-                    return;
+            }
+        };
+    }
+
+    private void handleDigPacket(PacketEvent event, PluginState current) {
+        PlayerDigType digType = event.getPacket().getPlayerDigTypes().readSafely(0);
+        if (digType == null) {
+            return;
+        }
+        DebugLog debugLog = current.debugLog();
+        DigRateLimiter digRateLimiter = current.digRateLimiter();
+        DigSequenceTracker digSequenceTracker = current.digSequenceTracker();
+        int entityId = event.getPlayer().getEntityId();
+        boolean start = digType == PlayerDigType.START_DESTROY_BLOCK;
+        boolean finish = digType == PlayerDigType.STOP_DESTROY_BLOCK || digType == PlayerDigType.ABORT_DESTROY_BLOCK;
+
+        if (digRateLimiter != null
+                && (start || digType == PlayerDigType.ABORT_DESTROY_BLOCK)
+                && !digRateLimiter.tryAcquire(entityId, event.getPlayer().getName())) {
+            event.setCancelled(true);
+            acknowledgeCancelled(event, current);
+            if (start && digSequenceTracker != null) {
+                digSequenceTracker.recordStart(entityId, BlockPositions.NO_POSITION);
+            }
+            return;
+        }
+
+        StructureModifier<BlockPosition> positionModifier = event.getPacket().getBlockPositionModifier();
+        BlockPosition position = positionModifier != null ? positionModifier.readSafely(0) : null;
+        int x = position != null ? position.getX() : 0;
+        int y = position != null ? position.getY() : 0;
+        int z = position != null ? position.getZ() : 0;
+
+        long decision = BlockDigSanitizer.ALLOW;
+        PluginSettings.SanitizationSettings sanitization = current.settings().sanitization();
+        if (sanitization.validatesDigTargets()) {
+            PlayerDigContext context = positionTracker.context(entityId);
+            if (context != null) {
+                context.bind();
+            }
+            decision = current.digSanitizer().evaluate(digType, x, y, z,
+                    sanitization.preventUnloadedChunkDig() ? context : null, context);
+        }
+        if (decision == BlockDigSanitizer.ALLOW && digSequenceTracker != null) {
+            if (start) {
+                digSequenceTracker.recordStart(entityId, BlockPositions.pack(x, y, z));
+            } else if (finish) {
+                int reason = digSequenceTracker.finish(entityId, x, y, z);
+                if (reason != 0) {
+                    decision = BlockDigSanitizer.cancel(reason);
                 }
+            }
+        }
 
-                BlockPosition replacement = result.replacement();
-                if (replacement != null && positionModifier != null) {
-                    positionModifier.writeSafely(0, replacement);
-                    if (debugLogging && event.getPlayer() != null) {
-                        BlockPosition original = position;
-                        getLogger().info(() -> "Replaced dig packet position from " + original
-                                + " to " + replacement + " for " + event.getPlayer().getName());
-                    }
+        if (decision == BlockDigSanitizer.ALLOW) {
+            return;
+        }
+
+        if (BlockDigSanitizer.isCancel(decision)) {
+            int reason = BlockDigSanitizer.cancelReason(decision);
+            event.setCancelled(true);
+            acknowledgeCancelled(event, current);
+            metrics.recordDigCancel(reason);
+            if (start && digSequenceTracker != null) {
+                digSequenceTracker.recordStart(entityId, BlockPositions.NO_POSITION);
+            }
+            if (debugLog != null) {
+                String playerName = event.getPlayer().getName();
+                debugLog.log(DebugLog.Category.DIG, playerName, DIG_PACKET_TYPE, () -> "Cancelled " + digType
+                        + " packet from " + playerName + " at " + position + " because "
+                        + BlockDigSanitizer.describeReason(reason) + ".");
+            }
+            return;
+        }
+
+        if (start && digSequenceTracker != null) {
+            digSequenceTracker.recordStart(entityId, decision);
+        }
+        if (positionModifier != null) {
+            BlockPosition replacement = BlockPositions.toBlockPosition(decision);
+            positionModifier.writeSafely(0, replacement);
+            metrics.recordDigReplacement();
+            if (debugLog != null) {
+                String playerName = event.getPlayer().getName();
+                debugLog.log(DebugLog.Category.DIG, playerName, DIG_PACKET_TYPE, () -> "Replaced dig packet position from "
+                        + position + " to " + replacement + " for " + playerName);
+            }
+        }
+    }
+
+    /**
+     * Queues a block changed acknowledgement for the sequence of a cancelled
+     * dig or use-item-on packet so the client drops its predicted block state
+     * instead of keeping a ghost block or resending the dig. Both packets
+     * share the client's prediction sequence.
+     */
+    private void acknowledgeCancelled(PacketEvent event, PluginState current) {
+        if (digAcknowledger == null || !current.settings().sanitization().acknowledgeCancelledDigs()) {
+            return;
+        }
+        Integer sequence = event.getPacket().getIntegers().readSafely(0);
+        if (sequence != null) {
+            digAcknowledger.acknowledge(event.getPlayer().getEntityId(), event.getPlayer(), sequence);
+        }
+    }
+
+    private void sendDigAcknowledgement(Player player, int sequence) {
+        if (!player.isOnline()) {
+            return;
+        }
+        try {
+            PacketContainer acknowledgement = protocolManager.createPacket(PacketType.Play.Server.BLOCK_CHANGED_ACK);
+            acknowledgement.getIntegers().writeSafely(0, sequence);
+            protocolManager.sendServerPacket(player, acknowledgement, false);
+            metrics.recordDigAcknowledgement();
+        } catch (RuntimeException ex) {
+            getLogger().log(Level.WARNING, "Unable to acknowledge cancelled dig packet for " + player.getName(), ex);
+        }
+    }
+
+    private PacketAdapter createInteractionSanitizer() {
+        return new PacketAdapter(this, ListenerPriority.LOWEST, PacketType.Play.Client.USE_ITEM) {
+            @Override
+            public void onPacketReceiving(PacketEvent event) {
+                PluginState current = state;
+                if (current != null && !event.isCancelled() && !event.isPlayerTemporary() && event.getPlayer() != null) {
+                    handleInteractionPacket(event, current);
                 }
             }
         };
+    }
+
+    private void handleInteractionPacket(PacketEvent event, PluginState current) {
+        if (!current.settings().sanitization().preventUnloadedChunkUseItemOn()) {
+            return;
+        }
+        PlayerDigContext context = positionTracker.context(event.getPlayer().getEntityId());
+        if (context == null) {
+            return;
+        }
+        context.bind();
+
+        MovingObjectPositionBlock hit = event.getPacket().getMovingBlockPositions().readSafely(0);
+        BlockPosition position = hit != null ? hit.getBlockPosition() : null;
+        if (position == null) {
+            return;
+        }
+        long decision = current.digSanitizer().evaluateUseItemOn(
+                position.getX(), position.getY(), position.getZ(), hit.getDirection(), context);
+
+        if (BlockDigSanitizer.isCancel(decision)) {
+            event.setCancelled(true);
+            acknowledgeCancelled(event, current);
+            metrics.recordInteractionCancel();
+            DebugLog debugLog = current.debugLog();
+            if (debugLog != null) {
+                String playerName = event.getPlayer().getName();
+                String packetType = event.getPacketType().name();
+                debugLog.log(DebugLog.Category.INTERACTION, playerName, packetType, () -> "Cancelled " + packetType
+                        + " from " + playerName + " because the chunk is not loaded.");
+            }
+        }
+    }
+
+    private void startWarmup(int iterations) {
+        List<String> corpus;
+        try {
+            corpus = JitWarmup.readCorpus(getResource(JitWarmup.CORPUS_RESOURCE));
+        } catch (IOException ex) {
+            getLogger().log(Level.WARNING, "Unable to read the warm-up corpus; skipping JIT warm-up.", ex);
+            return;
+        }
+
+        scheduler.runAsync(() -> {
+            PluginState current = state;
+            if (current == null) {
+                return;
+            }
+            JitWarmup.Result result = JitWarmup.run(normalizer, current.settings().normalizationOptions(),
+                    current.digSanitizer(), corpus, iterations);
+            getLogger().info("JIT warm-up finished in " + result.elapsedMillis() + " ms ("
+                    + result.normalizations() + " normalizations, " + result.decisions() + " dig decisions).");
+        });
+    }
+
+    private void tickRateLimitSummary() {
+        PluginState current = state;
+        if (current == null || current.digRateLimiter() == null) {
+            return;
+        }
+        PluginSettings.RateLimitSettings rateLimit = current.settings().sanitization().rateLimit();
+        if (!rateLimit.logOffenders()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - lastRateLimitSummary < TimeUnit.SECONDS.toNanos(rateLimit.summaryIntervalSeconds())) {
+            return;
+        }
+        lastRateLimitSummary = now;
+        logRateLimitSummary(current.digRateLimiter());
+    }
 
-        registerListener(adapter);
+    private void tickCacheSave() {
+        PluginState current = state;
+        if (current == null || current.normalizationCache() == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - lastCacheSave < TimeUnit.SECONDS.toNanos(current.settings().normalizationCache().saveIntervalSeconds())) {
+            return;
+        }
+        lastCacheSave = now;
+        saveNormalizationCache(current);
     }
 
-    private BlockDigSanitizer.ChunkLoadChecker chunkChecker(Player player) {
-        if (player == null) {
-            return null;
+    private void saveNormalizationCache(PluginState current) {
+        NormalizationCache cache = current.normalizationCache();
+        Path file = current.settings().normalizationCache().snapshotFile(getDataFolder());
+        if (cache == null || file == null || !cache.isDirty()) {
+            return;
         }
-        World world = player.getWorld();
-        if (world == null) {
-            return null;
+        try {
+            int saved = cache.save(file);
+            if (current.settings().debug()) {
+                getLogger().info(() -> "Saved " + saved + " cached hover event normalizations to " + file + ".");
+            }
+        } catch (IOException ex) {
+            getLogger().log(Level.WARNING, "Unable to save normalization cache " + file, ex);
         }
-        return world::isChunkLoaded;
     }
 
-    private BlockDigSanitizer.BlockPositionProvider blockPositionProvider(Player player) {
-        if (player == null) {
-            return null;
+    private void flushRecorder() {
+        PluginState current = state;
+        TrafficRecorder recorder = current != null ? current.trafficRecorder() : null;
+        if (recorder == null || recorder.isClosed()) {
+            return;
         }
-        return () -> {
-            Location location = player.getLocation();
-            if (location == null) {
-                return null;
+        try {
+            if (!recorder.flush()) {
+                getLogger().info("Traffic recording " + recorder.file() + " reached recording.max_megabytes and was closed ("
+                        + recorder.records() + " components).");
             }
-            return new BlockPosition(location.getBlockX(), location.getBlockY(), location.getBlockZ());
-        };
+        } catch (IOException ex) {
+            getLogger().log(Level.WARNING, "Unable to write traffic recording " + recorder.file() + "; stopping.", ex);
+            closeRecorder(recorder);
+        }
+    }
+
+    private void drainDebugLog() {
+        PluginState current = state;
+        if (current != null && current.debugLog() != null) {
+            current.debugLog().drain(System.nanoTime());
+        }
+    }
+
+    private void tickMetricsExport() {
+        PluginState current = state;
+        if (current != null && current.metricsExporter() != null) {
+            current.metricsExporter().tick(metrics, System.currentTimeMillis());
+        }
+    }
+
+    private void closeRecorder(TrafficRecorder recorder) {
+        try {
+            recorder.close();
+            getLogger().info("Traffic recording " + recorder.file() + " closed with " + recorder.records()
+                    + " components (" + recorder.dropped() + " dropped).");
+        } catch (IOException ex) {
+            getLogger().log(Level.WARNING, "Unable to close traffic recording " + recorder.file(), ex);
+        }
+    }
+
+    private void logRateLimitSummary(DigRateLimiter digRateLimiter) {
+        List<DigRateLimiter.Offender> offenders = digRateLimiter.drainOffenders();
+        if (offenders.isEmpty()) {
+            return;
+        }
+        StringBuilder summary = new StringBuilder("Dig rate limit dropped packets from ")
+                .append(offenders.size())
+                .append(offenders.size() == 1 ? " player: " : " players: ");
+        int shown = Math.min(10, offenders.size());
+        for (int i = 0; i < shown; i++) {
+            DigRateLimiter.Offender offender = offenders.get(i);
+            if (i > 0) {
+                summary.append(", ");
+            }
+            summary.append(offender.playerName()).append(" (").append(offender.dropped()).append(')');
+        }
+        if (offenders.size() > shown) {
+            summary.append(" and ").append(offenders.size() - shown).append(" more");
+        }
+        summary.append(". Total dropped since enable: ").append(digRateLimiter.droppedTotal()).append('.');
+        getLogger().warning(summary.toString());
     }
 
-    private void registerListener(PacketAdapter adapter) {
-        listeners.add(adapter);
-        protocolManager.addPacketListener(adapter);
+    private void registerChunkTracking() {
+        chunkTrackingRegistered = true;
+        ChunkTrackingListener chunkTracking = new ChunkTrackingListener(loadedChunks, getLogger());
+        getServer().getPluginManager().registerEvents(chunkTracking, this);
+        chunkTracking.seed(getServer().getWorlds());
+
+        getServer().getPluginManager().registerEvents(positionTracker, this);
+        positionTracker.seed(getServer().getOnlinePlayers(), scheduler);
     }
 
     private Set<PacketType> collectServerPlayPackets() {
@@ -228,32 +813,90 @@ public final class ItemsAdderFix extends JavaPlugin {
         return types;
     }
 
-    private void normalizePacket(PacketContainer packet, HoverEventUuidNormalizer.NormalizationOptions options) {
+    /**
+     * Normalizes every chat component of one outgoing packet as a single
+     * batch. A bundle is handled as one batch across all of its packets; the
+     * bundled packets are remembered for the current thread so that, if
+     * ProtocolLib also reports them one by one, they are not walked again.
+     * Those reports follow the bundle on the same thread, so the first packet
+     * that is not one of them releases the rest instead of keeping the last
+     * bundle's packets reachable from the thread.
+     */
+    private void normalizePacket(PacketEvent event, PluginState current) {
+        PacketContainer packet = event.getPacket();
         if (packet == null) {
             return;
         }
 
-        Consumer<HoverEventUuidNormalizer.NormalizationRecord> fixLogger = record -> {
-            if (logFixes && handledErrorLogger != null) {
-                handledErrorLogger.logNormalization(record.originalPayload(), record.normalizedUuid());
+        ComponentBatch batch = new ComponentBatch();
+        Set<Object> bundled = BUNDLED_PACKETS.get();
+        if (event.getPacketType() == PacketType.Play.Server.BUNDLE) {
+            Iterable<PacketContainer> members = packet.getPacketBundles().readSafely(0);
+            if (members == null) {
+                return;
+            }
+            bundled.clear();
+            for (PacketContainer member : members) {
+                if (member != null) {
+                    collectComponents(member, member.getType().name(), batch);
+                    bundled.add(member.getHandle());
+                }
             }
-            if (debugLogging) {
-                getLogger().info(() -> "Normalized hoverEvent UUID " + record.originalPayload()
-                        + " -> " + record.normalizedUuid());
+        } else {
+            if (!bundled.isEmpty()) {
+                if (bundled.remove(packet.getHandle())) {
+                    return;
+                }
+                bundled.clear();
             }
-        };
+            collectComponents(packet, event.getPacketType().name(), batch);
+        }
 
-        normalizeComponentModifier(packet.getChatComponents(), options, fixLogger);
+        HudChannelMemo.Channel hudChannel = current.settings().normalizationHudMemo() && event.getPlayer() != null
+                ? HudChannelMemo.Channel.of(event.getPacketType().name())
+                : null;
+        HudChannelMemo.PlayerMemo memo = null;
+        Object qualifier = null;
+        if (hudChannel != null && batch.size() > 0) {
+            memo = hudMemo.player(event.getPlayer().getEntityId());
+        }
+        if (memo != null) {
+            qualifier = hudQualifier(packet, hudChannel);
+            memo.resolve(batch, hudChannel, qualifier, current.settings().normalizationOptions());
+        }
+
+        String playerName = event.getPlayer() != null ? event.getPlayer().getName() : null;
+        if (pipeline.normalizeBatch(batch, current, playerName) > 0) {
+            writeComponents(batch);
+        }
+        if (memo != null && batch.failure() == null) {
+            memo.remember(batch, hudChannel, qualifier);
+        }
+        if (batch.failure() != null) {
+            throw batch.failure();
+        }
+    }
+
+    private static Object hudQualifier(PacketContainer packet, HudChannelMemo.Channel channel) {
+        if (channel.qualifierType() == UUID.class) {
+            return packet.getUUIDs().readSafely(0);
+        }
+        return channel.qualifierType() == String.class ? packet.getStrings().readSafely(0) : null;
+    }
+
+    private static void collectComponents(PacketContainer packet, String packetType, ComponentBatch batch) {
+        StructureModifier<WrappedChatComponent> components = packet.getChatComponents();
+        collectComponents(components, packetType, batch);
 
         StructureModifier<WrappedChatComponent> modifier = packet.getModifier().withType(WrappedChatComponent.class);
-        if (modifier != null && modifier != packet.getChatComponents()) {
-            normalizeComponentModifier(modifier, options, fixLogger);
+        if (modifier != null && modifier != components) {
+            collectComponents(modifier, packetType, batch);
         }
     }
 
-    private void normalizeComponentModifier(StructureModifier<WrappedChatComponent> modifier,
-                                            HoverEventUuidNormalizer.NormalizationOptions options,
-                                            Consumer<HoverEventUuidNormalizer.NormalizationRecord> fixLogger) {
+    private static void collectComponents(StructureModifier<WrappedChatComponent> modifier,
+                                          String packetType,
+                                          ComponentBatch batch) {
         if (modifier == null) {
             return;
         }
@@ -265,13 +908,18 @@ public final class ItemsAdderFix extends JavaPlugin {
             }
 
             String json = component.getJson();
-            if (json == null || json.isEmpty()) {
-                continue;
+            if (json != null && !json.isEmpty()) {
+                batch.add(packetType, json, modifier, index);
             }
+        }
+    }
 
-            String normalized = normalizer.normalize(json, options, fixLogger);
-            if (!Objects.equals(json, normalized)) {
-                modifier.writeSafely(index, WrappedChatComponent.fromJson(normalized));
+    @SuppressWarnings("unchecked")
+    private static void writeComponents(ComponentBatch batch) {
+        for (int index = 0; index < batch.size(); index++) {
+            if (batch.changed(index)) {
+                StructureModifier<WrappedChatComponent> modifier = (StructureModifier<WrappedChatComponent>) batch.owner(index);
+                modifier.writeSafely(batch.slot(index), WrappedChatComponent.fromJson(batch.normalized(index)));
             }
         }
     }
@@ -0,0 +1,90 @@
+package com.ssilensio.itemsadderfix;
+
+import com.comphenix.protocol.wrappers.EnumWrappers;
+import com.comphenix.protocol.wrappers.EnumWrappers.PlayerDigType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives the packet hot paths with synthetic input at startup so the JIT has
+ * compiled them before the first players join. The corpus ships with the jar;
+ * dig decisions are generated around a fake player whose chunks are loaded in
+ * a checkerboard, which exercises both the allow and cancel branches.
+ */
+final class JitWarmup {
+    static final String CORPUS_RESOURCE = "warmup-corpus.ndjson";
+
+    private static final PlayerDigType[] DIG_TYPES = {
+            PlayerDigType.START_DESTROY_BLOCK,
+            PlayerDigType.STOP_DESTROY_BLOCK,
+            PlayerDigType.ABORT_DESTROY_BLOCK,
+            PlayerDigType.DROP_ITEM,
+            PlayerDigType.RELEASE_USE_ITEM
+    };
+    private static final EnumWrappers.Direction[] FACES = EnumWrappers.Direction.values();
+
+    private JitWarmup() {
+    }
+
+    static List<String> readCorpus(InputStream input) throws IOException {
+        List<String> corpus = new ArrayList<>();
+        if (input == null) {
+            return corpus;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    corpus.add(line);
+                }
+            }
+        }
+        return corpus;
+    }
+
+    static Result run(HoverEventUuidNormalizer normalizer,
+                      HoverEventUuidNormalizer.NormalizationOptions options,
+                      BlockDigSanitizer sanitizer,
+                      List<String> corpus,
+                      int iterations) {
+        long started = System.nanoTime();
+        long normalizations = 0;
+        long decisions = 0;
+        long sink = 0;
+
+        BlockDigSanitizer.ChunkLoadChecker checker = (chunkX, chunkZ) -> ((chunkX ^ chunkZ) & 1) == 0;
+        BlockDigSanitizer.PositionSource source = () -> BlockPositions.pack(8, 64, 8);
+
+        for (int i = 0; i < iterations; i++) {
+            for (String json : corpus) {
+                sink += normalizer.normalize(json, options, null).length();
+                normalizations++;
+            }
+
+            int x = (i & 31) - 16;
+            int z = ((i >>> 5) & 31) - 16;
+            int y = 60 + (i & 7);
+            sink += sanitizer.evaluate(DIG_TYPES[i % DIG_TYPES.length], x, y, z, checker, source);
+            sink += sanitizer.evaluateUseItemOn(x, y, z, FACES[i % FACES.length], checker);
+            decisions += 2;
+        }
+
+        return new Result(System.nanoTime() - started, normalizations, decisions, sink);
+    }
+
+    /**
+     * {@code sink} only exists so the JIT cannot discard the warm-up work as
+     * dead code.
+     */
+    record Result(long elapsedNanos, long normalizations, long decisions, long sink) {
+        long elapsedMillis() {
+            return elapsedNanos / 1_000_000L;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ssilensio.itemsadderfix;
+
+import com.ssilensio.itemsadderfix.util.ConcurrentLongSet;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mirrors the set of loaded chunks per world so packet threads can answer
+ * "is this chunk loaded?" without touching the server chunk map. The index is
+ * fed from chunk load/unload events on the server side and read lock-free.
+ */
+final class LoadedChunkIndex {
+    private final Map<UUID, WorldChunks> worlds = new ConcurrentHashMap<>();
+
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    WorldChunks world(UUID worldId) {
+        return worldId == null ? null : worlds.get(worldId);
+    }
+
+    WorldChunks track(UUID worldId) {
+        return worlds.computeIfAbsent(worldId, ignored -> new WorldChunks());
+    }
+
+    WorldChunks track(UUID worldId, int minHeight, int maxHeight) {
+        WorldChunks world = track(worldId);
+        world.minHeight = minHeight;
+        world.maxHeight = maxHeight;
+        world.chunksKnown = true;
+        return world;
+    }
+
+    /**
+     * Tracks only the height range of a world whose loaded chunks could not
+     * be listed. Every chunk in it counts as loaded, and load events are
+     * ignored for it, but the world height check still applies.
+     */
+    WorldChunks trackHeights(UUID worldId, int minHeight, int maxHeight) {
+        WorldChunks world = track(worldId);
+        world.minHeight = minHeight;
+        world.maxHeight = maxHeight;
+        world.chunksKnown = false;
+        world.chunks.clear();
+        return world;
+    }
+
+    void untrack(UUID worldId) {
+        WorldChunks removed = worlds.remove(worldId);
+        if (removed != null) {
+            removed.chunks.clear();
+        }
+    }
+
+    /**
+     * Ignored unless the world's already loaded chunks were seeded, otherwise
+     * load events alone would leave it looking mostly unloaded.
+     */
+    void markLoaded(UUID worldId, int chunkX, int chunkZ) {
+        WorldChunks world = worlds.get(worldId);
+        if (world != null && world.chunksKnown) {
+            world.chunks.add(chunkKey(chunkX, chunkZ));
+        }
+    }
+
+    void markUnloaded(UUID worldId, int chunkX, int chunkZ) {
+        WorldChunks world = worlds.get(worldId);
+        if (world != null) {
+            world.chunks.remove(chunkKey(chunkX, chunkZ));
+        }
+    }
+
+    void clear() {
+        worlds.clear();
+    }
+
+    static final class WorldChunks implements BlockDigSanitizer.ChunkLoadChecker {
+        private final ConcurrentLongSet chunks = new ConcurrentLongSet(1024);
+        private volatile int minHeight = Integer.MIN_VALUE;
+        private volatile int maxHeight = Integer.MAX_VALUE;
+        private volatile boolean chunksKnown = true;
+
+        @Override
+        public boolean isChunkLoaded(int chunkX, int chunkZ) {
+            return !chunksKnown || chunks.contains(chunkKey(chunkX, chunkZ));
+        }
+
+        int minHeight() {
+            return minHeight;
+        }
+
+        int maxHeight() {
+            return maxHeight;
+        }
+
+        int size() {
+            return chunks.size();
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.ssilensio.itemsadderfix;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Standalone process that merges the {@link MetricsExporter} streams of many
+ * backends. Frames carry running totals, so the collector turns each one
+ * into the increase since the same server's previous frame; a server restart
+ * shows up as a new start time and starts from zero again. Increases are
+ * summed into per-server totals, which survive collector restarts in one
+ * compact store file, and into a rolling window that the periodic report is
+ * computed from. The audit section of each server's latest frame is kept in
+ * memory, and the report lists the UUIDs fixed most often across servers.
+ *
+ * <pre>java -cp ItemsAdderFix.jar com.ssilensio.itemsadderfix.MetricsCollector &lt;unix:path|tcp:host:port&gt;
+ *     [--store file] [--window seconds] [--report seconds]</pre>
+ */
+public final class MetricsCollector {
+    static final int STORE_MAGIC = 0x49414653;
+    static final int STORE_VERSION = 2;
+
+    private static final int TOP_PACKET_TYPES = 5;
+    private static final int TOP_FIXES = 3;
+
+    private final long windowMillis;
+    private final Map<String, ServerTotals> servers = new TreeMap<>();
+    private final ArrayDeque<Increase> window = new ArrayDeque<>();
+
+    MetricsCollector(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public static void main(String[] args) {
+        String target = null;
+        Path store = Path.of("metrics-store.bin");
+        int windowSeconds = 60;
+        int reportSeconds = 10;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--store", "--window", "--report" -> {
+                    if (i + 1 >= args.length) {
+                        usageError();
+                        return;
+                    }
+                    String value = args[++i];
+                    try {
+                        switch (args[i - 1]) {
+                            case "--store" -> store = Path.of(value);
+                            case "--window" -> windowSeconds = Math.max(1, Integer.parseInt(value));
+                            default -> reportSeconds = Math.max(1, Integer.parseInt(value));
+                        }
+                    } catch (NumberFormatException ex) {
+                        usageError();
+                        return;
+                    }
+                }
+                case "-h", "--help" -> {
+                    usage(System.out);
+                    return;
+                }
+                default -> {
+                    if (args[i].startsWith("--") || target != null) {
+                        usageError();
+                        return;
+                    }
+                    target = args[i];
+                }
+            }
+        }
+        if (target == null) {
+            usageError();
+            return;
+        }
+
+        MetricsCollector collector = new MetricsCollector(TimeUnit.SECONDS.toMillis(windowSeconds));
+        try {
+            if (Files.exists(store)) {
+                System.out.println("Loaded " + collector.load(store) + " servers from " + store + ".");
+            }
+            collector.serve(MetricsFrame.address(target), store, reportSeconds);
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("Collector failed: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private void serve(SocketAddress address, Path store, int reportSeconds) throws IOException {
+        SocketAddress bind = MetricsFrame.resolve(address);
+        ServerSocketChannel server;
+        if (bind instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        server.bind(bind);
+        System.out.println("Collecting metrics on " + address + ".");
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(task -> daemon(task, "report"));
+        reporter.scheduleAtFixedRate(() -> {
+            System.out.println(report(System.currentTimeMillis()));
+            save(store);
+        }, reportSeconds, reportSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> save(store), "ItemsAdderFix collector shutdown"));
+
+        ExecutorService connections = Executors.newCachedThreadPool(task -> daemon(task, "connection"));
+        while (true) {
+            SocketChannel client = server.accept();
+            connections.execute(() -> read(client));
+        }
+    }
+
+    private void read(SocketChannel client) {
+        try (client; DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)))) {
+            MetricsFrame frame;
+            while ((frame = MetricsFrame.read(in)) != null) {
+                accept(frame, System.currentTimeMillis());
+            }
+        } catch (IOException ex) {
+            System.err.println("Dropped metrics connection: " + ex.getMessage());
+        }
+    }
+
+    private void save(Path store) {
+        try {
+            save(store, System.currentTimeMillis());
+        } catch (IOException ex) {
+            System.err.println("Unable to save " + store + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Merges one frame. Frames that are older than, or the same as, what was
+     * already merged for that server are ignored, which makes resending a
+     * spool after a partial write harmless. Returns whether it was merged.
+     */
+    synchronized boolean accept(MetricsFrame frame, long receivedAt) {
+        ServerTotals server = servers.computeIfAbsent(frame.serverId(), ignored -> new ServerTotals());
+        if (frame.startedAt() < server.startedAt
+                || (frame.startedAt() == server.startedAt && frame.timestamp() <= server.lastTimestamp)) {
+            return false;
+        }
+        boolean restarted = frame.startedAt() != server.startedAt;
+        Map<String, Long> increase = new HashMap<>();
+        for (Map.Entry<String, Long> counter : frame.counters().entrySet()) {
+            long previous = restarted ? 0 : server.last.getOrDefault(counter.getKey(), 0L);
+            long delta = counter.getValue() >= previous ? counter.getValue() - previous : counter.getValue();
+            if (delta > 0) {
+                increase.put(counter.getKey(), delta);
+                server.totals.merge(counter.getKey(), delta, Long::sum);
+            }
+        }
+        server.startedAt = frame.startedAt();
+        server.lastTimestamp = frame.timestamp();
+        server.last = new HashMap<>(frame.counters());
+        server.fixes = new HashMap<>(frame.fixes());
+        if (!increase.isEmpty()) {
+            window.addLast(new Increase(receivedAt, increase));
+        }
+        trim(receivedAt);
+        return true;
+    }
+
+    /**
+     * Sums the per-server totals across the whole network.
+     */
+    synchronized Map<String, Long> totals() {
+        Map<String, Long> totals = new TreeMap<>();
+        for (ServerTotals server : servers.values()) {
+            server.totals.forEach((name, value) -> totals.merge(name, value, Long::sum));
+        }
+        return totals;
+    }
+
+    synchronized Map<String, Long> totals(String serverId) {
+        ServerTotals server = servers.get(serverId);
+        return server != null ? new TreeMap<>(server.totals) : Map.of();
+    }
+
+    /**
+     * Sums the increases received within the rolling window ending at
+     * {@code now}.
+     */
+    synchronized Map<String, Long> recent(long now) {
+        trim(now);
+        Map<String, Long> recent = new TreeMap<>();
+        for (Increase increase : window) {
+            increase.counters.forEach((name, value) -> recent.merge(name, value, Long::sum));
+        }
+        return recent;
+    }
+
+    /**
+     * Sums the audit sections of every server's latest frame, most fixed
+     * UUIDs first.
+     */
+    synchronized List<Map.Entry<String, Long>> fixes() {
+        Map<String, Long> fixes = new HashMap<>();
+        for (ServerTotals server : servers.values()) {
+            server.fixes.forEach((uuid, count) -> fixes.merge(uuid, count, Long::sum));
+        }
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(fixes.entrySet());
+        sorted.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return sorted;
+    }
+
+    synchronized int servers() {
+        return servers.size();
+    }
+
+    String report(long now) {
+        Map<String, Long> recent = recent(now);
+        long components = recent.getOrDefault("components", 0L);
+        long rewrites = recent.getOrDefault("rewrites", 0L);
+        long digCancels = 0;
+        List<Map.Entry<String, Long>> packetTypes = new ArrayList<>();
+        for (Map.Entry<String, Long> counter : recent.entrySet()) {
+            if (counter.getKey().startsWith("dig_cancels.")) {
+                digCancels += counter.getValue();
+            } else if (counter.getKey().startsWith(PluginMetrics.REWRITES_PREFIX)) {
+                packetTypes.add(counter);
+            }
+        }
+        packetTypes.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "%d servers, last %d s: %,d components, %,d rewritten (%.2f%%), %.2f us/component, %,d failures, %,d dig cancels",
+                servers(), TimeUnit.MILLISECONDS.toSeconds(windowMillis), components, rewrites,
+                components == 0 ? 0.0 : rewrites * 100.0 / components,
+                components == 0 ? 0.0 : recent.getOrDefault("normalization_nanos", 0L) / 1000.0 / components,
+                recent.getOrDefault("failures", 0L), digCancels));
+        for (int i = 0; i < packetTypes.size() && i < TOP_PACKET_TYPES; i++) {
+            Map.Entry<String, Long> packetType = packetTypes.get(i);
+            report.append(i == 0 ? ". Top rewrites: " : ", ")
+                    .append(packetType.getKey().substring(PluginMetrics.REWRITES_PREFIX.length()))
+                    .append(' ').append(packetType.getValue());
+        }
+        List<Map.Entry<String, Long>> fixes = fixes();
+        for (int i = 0; i < fixes.size() && i < TOP_FIXES; i++) {
+            report.append(i == 0 ? ". Most fixed UUIDs: " : ", ")
+                    .append(fixes.get(i).getKey()).append(' ').append(fixes.get(i).getValue());
+        }
+        return report.append('.').toString();
+    }
+
+    /**
+     * Writes every server's totals, last frame and audit section to
+     * {@code file}, replacing it atomically.
+     */
+    synchronized void save(Path file, long now) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(STORE_MAGIC);
+                out.writeInt(STORE_VERSION);
+                out.writeLong(now);
+                out.writeInt(servers.size());
+                for (Map.Entry<String, ServerTotals> server : servers.entrySet()) {
+                    out.writeUTF(server.getKey());
+                    out.writeLong(server.getValue().startedAt);
+                    out.writeLong(server.getValue().lastTimestamp);
+                    writeCounters(out, server.getValue().last);
+                    writeCounters(out, server.getValue().totals);
+                    writeCounters(out, server.getValue().fixes);
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Restores the totals written by {@link #save(Path, long)}. Version 1
+     * stores have no audit sections; those servers report no fixes until
+     * their next frame. Returns the number of servers loaded.
+     */
+    synchronized int load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != STORE_MAGIC) {
+                throw new IOException(file + " is not a metrics store");
+            }
+            int version = in.readInt();
+            if (version != 1 && version != STORE_VERSION) {
+                throw new IOException("Unsupported metrics store version " + version);
+            }
+            in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                ServerTotals server = new ServerTotals();
+                String serverId = in.readUTF();
+                server.startedAt = in.readLong();
+                server.lastTimestamp = in.readLong();
+                server.last = readCounters(in);
+                server.totals = readCounters(in);
+                if (version >= 2) {
+                    server.fixes = readCounters(in);
+                }
+                servers.put(serverId, server);
+            }
+            return count;
+        }
+    }
+
+    private void trim(long now) {
+        while (!window.isEmpty() && now - window.peekFirst().receivedAt > windowMillis) {
+            window.pollFirst();
+        }
+    }
+
+    private static void writeCounters(DataOutputStream out, Map<String, Long> counters) throws IOException {
+        out.writeInt(counters.size());
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            out.writeUTF(counter.getKey());
+            out.writeLong(counter.getValue());
+        }
+    }
+
+    private static Map<String, Long> readCounters(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt metrics store");
+        }
+        Map<String, Long> counters = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            counters.put(in.readUTF(), in.readLong());
+        }
+        return counters;
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, "ItemsAdderFix collector " + name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void usage(PrintStream out) {
+        out.println("Usage: java -cp ItemsAdderFix.jar com.ssilensio.itemsadderfix.MetricsCollector"
+                + " <unix:path|tcp:host:port> [--store file] [--window seconds] [--report seconds]");
+    }
+
+    private static void usageError() {
+        usage(System.err);
+        System.exit(2);
+    }
+
+    private static final class ServerTotals {
+        private long startedAt = Long.MIN_VALUE;
+        private long lastTimestamp = Long.MIN_VALUE;
+        private Map<String, Long> last = new HashMap<>();
+        private Map<String, Long> totals = new HashMap<>();
+        private Map<String, Long> fixes = Map.of();
+    }
+
+    private record Increase(long receivedAt, Map<String, Long> counters) {}
+}
@@ -0,0 +1,265 @@
+package com.ssilensio.itemsadderfix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams {@link MetricsFrame}s to a {@link MetricsCollector} over a Unix
+ * domain socket or TCP. Packet threads never see the exporter: they only bump
+ * {@link PluginMetrics} counters, and frames are taken and sent from the
+ * plugin's once-a-second async ticker. While the collector is unreachable
+ * frames are appended to a local spool file, up to a size limit, and sent in
+ * one write ahead of the next frame once it is back.
+ */
+final class MetricsExporter implements Closeable {
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+    private final PluginSettings.ExportSettings settings;
+    private final SocketAddress address;
+    private final Path spool;
+    private final long maxSpoolBytes;
+    private final Logger logger;
+    private final AtomicBoolean exporting = new AtomicBoolean();
+    private final Object spoolLock = new Object();
+    private volatile String serverId;
+    private volatile SocketChannel channel;
+    private volatile boolean closed;
+    private long lastExport;
+    private boolean collectorDown;
+    private boolean spoolFullReported;
+    private long dropped;
+
+    /**
+     * @throws IllegalArgumentException if the target is not a valid address
+     */
+    MetricsExporter(PluginSettings.ExportSettings settings, Path spool, Logger logger) {
+        this.settings = settings;
+        this.address = MetricsFrame.address(settings.target());
+        this.spool = spool;
+        this.maxSpoolBytes = settings.spoolMaxMegabytes() * 1024L * 1024L;
+        this.logger = logger;
+    }
+
+    PluginSettings.ExportSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Sends a frame once the export interval has passed. A call that overlaps
+     * a slow send returns immediately.
+     */
+    void tick(PluginMetrics metrics, long now) {
+        if (now - lastExport < TimeUnit.SECONDS.toMillis(settings.intervalSeconds())
+                || !exporting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastExport = now;
+            export(frame(metrics, now));
+        } finally {
+            exporting.set(false);
+        }
+    }
+
+    /**
+     * Spools the final totals on shutdown; they are sent ahead of the first
+     * frame after the next start. Shutdown never waits on the collector: it
+     * closes the exporter without taking its lock, so a send still in progress
+     * on the ticker, even one still connecting, gives up and spools its frame.
+     */
+    void flush(PluginMetrics metrics, long now) {
+        close();
+        spool(frame(metrics, now).encode());
+    }
+
+    /**
+     * Sends any spooled frames and then {@code frame}. Returns {@code false}
+     * when the collector could not be reached and the frame was spooled or,
+     * with a full spool, dropped.
+     */
+    synchronized boolean export(MetricsFrame frame) {
+        byte[] encoded = frame.encode();
+        byte[] spooled = new byte[0];
+        try {
+            SocketChannel target = connect();
+            spooled = takeSpool();
+            if (spooled.length > 0) {
+                write(target, spooled);
+            }
+            write(target, encoded);
+            if (collectorDown) {
+                collectorDown = false;
+                synchronized (spoolLock) {
+                    spoolFullReported = false;
+                }
+                logger.info("Metrics collector at " + settings.target() + " is reachable again"
+                        + (spooled.length > 0 ? "; sent " + spooled.length + " spooled bytes." : "."));
+            }
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            closeChannel();
+            if (!collectorDown && !closed) {
+                collectorDown = true;
+                logger.warning("Metrics collector at " + settings.target() + " is unreachable (" + ex
+                        + "); spooling frames to " + spool + " until it is back.");
+            }
+            if (spooled.length > 0) {
+                spool(spooled);
+            }
+            spool(encoded);
+            return false;
+        }
+    }
+
+    String serverId() {
+        String id = serverId;
+        if (id == null) {
+            id = settings.serverId() != null && !settings.serverId().isBlank()
+                    ? settings.serverId()
+                    : localHostName();
+            serverId = id;
+        }
+        return id;
+    }
+
+    long dropped() {
+        synchronized (spoolLock) {
+            return dropped;
+        }
+    }
+
+    /**
+     * Stops the exporter. Later sends, and one still connecting, spool their
+     * frame instead of reaching the collector.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeChannel();
+    }
+
+    private MetricsFrame frame(PluginMetrics metrics, long now) {
+        return new MetricsFrame(serverId(), metrics.startedAt(), now, metrics.snapshot(),
+                metrics.topFixes(MetricsFrame.MAX_FIXES));
+    }
+
+    private SocketChannel connect() throws IOException {
+        if (closed) {
+            throw new IOException("exporter closed");
+        }
+        SocketChannel current = channel;
+        if (current != null && current.isOpen()) {
+            return current;
+        }
+        SocketAddress resolved = MetricsFrame.resolve(address);
+        SocketChannel opened;
+        if (resolved instanceof InetSocketAddress) {
+            opened = SocketChannel.open();
+            try {
+                opened.socket().connect(resolved, CONNECT_TIMEOUT_MILLIS);
+            } catch (IOException | RuntimeException ex) {
+                opened.close();
+                throw ex;
+            }
+        } else {
+            opened = SocketChannel.open(resolved);
+        }
+        channel = opened;
+        if (closed) {
+            closeChannel();
+            throw new IOException("exporter closed");
+        }
+        return opened;
+    }
+
+    private static void write(SocketChannel target, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    /**
+     * Appends a frame to the spool. A full spool drops the frame; the next
+     * frame that gets through carries the same totals, so only the time
+     * resolution of the outage is lost.
+     */
+    private void spool(byte[] frame) {
+        synchronized (spoolLock) {
+            appendToSpool(frame);
+        }
+    }
+
+    private void appendToSpool(byte[] frame) {
+        if (spool == null) {
+            dropped++;
+            return;
+        }
+        try {
+            long size = Files.exists(spool) ? Files.size(spool) : 0;
+            if (size + frame.length > maxSpoolBytes) {
+                dropped++;
+                if (!spoolFullReported) {
+                    spoolFullReported = true;
+                    logger.warning("Metrics spool " + spool + " reached export.spool_max_megabytes; "
+                            + "dropping frames until the collector is back.");
+                }
+                return;
+            }
+            Files.createDirectories(spool.toAbsolutePath().getParent());
+            Files.write(spool, frame, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            dropped++;
+            logger.log(Level.WARNING, "Unable to spool metrics to " + spool, ex);
+        }
+    }
+
+    /**
+     * Removes and returns the spooled frames; a send that fails puts them
+     * back. The collector ignores frames older than ones it has merged, so
+     * the final frame from a shutdown may land ahead of them.
+     */
+    private byte[] takeSpool() throws IOException {
+        synchronized (spoolLock) {
+            if (spool == null || !Files.exists(spool)) {
+                return new byte[0];
+            }
+            byte[] spooled = Files.readAllBytes(spool);
+            Files.delete(spool);
+            return spooled;
+        }
+    }
+
+    private void closeChannel() {
+        SocketChannel current = channel;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.close();
+        } catch (IOException ignored) {
+            // Nothing left to send on it.
+        }
+        channel = null;
+    }
+
+    private static String localHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException ex) {
+            return "server";
+        }
+    }
+}
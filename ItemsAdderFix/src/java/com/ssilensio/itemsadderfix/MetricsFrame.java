@@ -0,0 +1,161 @@
+package com.ssilensio.itemsadderfix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One export from a backend to the {@link MetricsCollector}: the server's id,
+ * when its counters started, when the frame was taken, and every non-zero
+ * {@link PluginMetrics} counter as a running total. Because the values are
+ * totals, a lost or repeated frame only costs time resolution, never counts.
+ * The audit section summarises the XML audit log: up to {@link #MAX_FIXES}
+ * UUIDs whose legacy payloads were fixed most often, with running counts.
+ *
+ * <p>On the wire and in the exporter's spool file every frame is prefixed
+ * with its length, followed by a magic number, the format version, the
+ * server id, both timestamps in epoch milliseconds, the counters as
+ * name/value pairs and the audit section as UUID/count pairs.</p>
+ */
+record MetricsFrame(String serverId, long startedAt, long timestamp, Map<String, Long> counters,
+                    Map<String, Long> fixes) {
+    static final int MAGIC = 0x4941464D;
+    static final int FORMAT_VERSION = 2;
+    static final int MAX_FIXES = 16;
+
+    private static final int MAX_FRAME_BYTES = 1 << 20;
+
+    MetricsFrame(String serverId, long startedAt, long timestamp, Map<String, Long> counters) {
+        this(serverId, startedAt, timestamp, counters, Map.of());
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeUTF(serverId);
+            out.writeLong(startedAt);
+            out.writeLong(timestamp);
+            int written = 0;
+            for (long value : counters.values()) {
+                if (value != 0) {
+                    written++;
+                }
+            }
+            out.writeInt(written);
+            for (Map.Entry<String, Long> counter : counters.entrySet()) {
+                if (counter.getValue() != 0) {
+                    out.writeUTF(counter.getKey());
+                    out.writeLong(counter.getValue());
+                }
+            }
+            int fixCount = Math.min(fixes.size(), MAX_FIXES);
+            out.writeShort(fixCount);
+            int fixIndex = 0;
+            for (Map.Entry<String, Long> fix : fixes.entrySet()) {
+                if (fixIndex++ == fixCount) {
+                    break;
+                }
+                out.writeUTF(fix.getKey());
+                out.writeLong(fix.getValue());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        byte[] frame = bytes.toByteArray();
+        int length = frame.length - 4;
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+        return frame;
+    }
+
+    /**
+     * Reads the next frame, or returns {@code null} at the end of the stream.
+     */
+    static MetricsFrame read(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException ex) {
+            return null;
+        }
+        if (length < 28 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Corrupt metrics frame length " + length);
+        }
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a metrics frame");
+        }
+        int version = in.readUnsignedShort();
+        if (version != 1 && version != FORMAT_VERSION) {
+            throw new IOException("Unsupported metrics frame version " + version);
+        }
+        String serverId = in.readUTF();
+        long startedAt = in.readLong();
+        long timestamp = in.readLong();
+        int count = in.readInt();
+        if (count < 0 || count > MAX_FRAME_BYTES / 10) {
+            throw new IOException("Corrupt metrics frame counter count " + count);
+        }
+        Map<String, Long> counters = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            counters.put(in.readUTF(), in.readLong());
+        }
+        // Version 1 frames, possibly still spooled from an older plugin, have no audit section
+        Map<String, Long> fixes = new LinkedHashMap<>();
+        int fixCount = version == 1 ? 0 : in.readUnsignedShort();
+        if (fixCount > MAX_FIXES) {
+            throw new IOException("Corrupt metrics frame audit size " + fixCount);
+        }
+        for (int i = 0; i < fixCount; i++) {
+            fixes.put(in.readUTF(), in.readLong());
+        }
+        return new MetricsFrame(serverId, startedAt, timestamp, counters, fixes);
+    }
+
+    /**
+     * Parses an export target: {@code unix:<socket path>} or
+     * {@code tcp:<host>:<port>}. Host names are left unresolved; see
+     * {@link #resolve(SocketAddress)}.
+     */
+    static SocketAddress address(String target) {
+        if (target != null && target.startsWith("unix:") && target.length() > 5) {
+            return UnixDomainSocketAddress.of(target.substring(5));
+        }
+        if (target != null && target.startsWith("tcp:")) {
+            int colon = target.lastIndexOf(':');
+            if (colon > 4) {
+                try {
+                    return InetSocketAddress.createUnresolved(target.substring(4, colon),
+                            Integer.parseInt(target.substring(colon + 1)));
+                } catch (IllegalArgumentException ignored) {
+                    // Reported below.
+                }
+            }
+        }
+        throw new IllegalArgumentException("Expected unix:<path> or tcp:<host>:<port> but got " + target);
+    }
+
+    /**
+     * Looks up the host of a TCP target, so a collector that moved is found
+     * again on the next connection attempt.
+     */
+    static SocketAddress resolve(SocketAddress address) {
+        if (address instanceof InetSocketAddress inet && inet.isUnresolved()) {
+            return new InetSocketAddress(inet.getHostString(), inet.getPort());
+        }
+        return address;
+    }
+}
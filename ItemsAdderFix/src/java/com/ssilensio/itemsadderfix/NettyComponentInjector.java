@@ -0,0 +1,372 @@
+package com.ssilensio.itemsadderfix;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.reflect.StructureModifier;
+import com.comphenix.protocol.utility.MinecraftReflection;
+import com.comphenix.protocol.wrappers.WrappedChatComponent;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Alternative to the ProtocolLib hover event listener that sits directly in
+ * each player's Netty pipeline, right before the packet encoder. Outgoing
+ * packets are looked up by their NMS class in a table built once at start-up;
+ * classes without component fields are passed on untouched, so the common
+ * case costs a single map lookup instead of a {@code PacketEvent} and a
+ * {@code PacketContainer}. ProtocolLib is only used to rewrite the rare packet
+ * whose components actually changed.
+ *
+ * <p>When the bundle packet class can be resolved, the handler sits in front
+ * of the unbundler instead, so a bundle (an entity spawn burst, for example)
+ * arrives whole and all of its components are normalized as one batch.</p>
+ *
+ * <p>The constructor builds the packet table and throws when the server
+ * internals do not look as expected; the plugin then keeps using the
+ * ProtocolLib listener.</p>
+ */
+final class NettyComponentInjector implements Listener {
+    static final String HANDLER_NAME = "itemsadderfix_components";
+    private static final String ENCODER_NAME = "encoder";
+    private static final String UNBUNDLER_NAME = "unbundler";
+    private static final Set<String> PACKET_LISTENER_TYPES = Set.of("ServerGamePacketListenerImpl", "PlayerConnection");
+    private static final Set<String> CONNECTION_TYPES = Set.of("Connection", "NetworkManager");
+
+    private final Logger logger;
+    private final NormalizationPipeline pipeline;
+    private final Supplier<PluginState> state;
+    private final Class<?> componentClass;
+    private final Map<Class<?>, PacketComponents> packets;
+    private final Class<?> bundleClass;
+    private final Field bundlePackets;
+    private volatile boolean active;
+
+    private volatile ChannelPath channelPath;
+    private volatile boolean channelLookupFailed;
+
+    NettyComponentInjector(Logger logger, NormalizationPipeline pipeline, Supplier<PluginState> state) {
+        this.logger = logger;
+        this.pipeline = pipeline;
+        this.state = state;
+        this.componentClass = Objects.requireNonNull(MinecraftReflection.getIChatBaseComponentClass(),
+                "component class");
+
+        Map<Class<?>, PacketComponents> table = new HashMap<>();
+        Class<?> bundle = null;
+        for (PacketType type : PacketType.values()) {
+            if (!type.isSupported()
+                    || type.getProtocol() != PacketType.Protocol.PLAY
+                    || type.getSender() != PacketType.Sender.SERVER) {
+                continue;
+            }
+            Class<?> packetClass = type.getPacketClass();
+            if (type == PacketType.Play.Server.BUNDLE) {
+                bundle = packetClass;
+                continue;
+            }
+            PacketComponents components = packetClass != null ? PacketComponents.of(type.name(), packetClass, componentClass) : null;
+            if (components != null) {
+                table.put(packetClass, components);
+            }
+        }
+        if (table.isEmpty()) {
+            throw new IllegalStateException("No outgoing packet class carries a chat component");
+        }
+        this.packets = Map.copyOf(table);
+
+        Field members = null;
+        if (bundle != null) {
+            try {
+                members = findField(bundle, Iterable.class::isAssignableFrom);
+            } catch (NoSuchFieldException ex) {
+                logger.log(Level.INFO, "Bundle packets are not recognized; their packets are normalized one by one.", ex);
+            }
+        }
+        this.bundleClass = members != null ? bundle : null;
+        this.bundlePackets = members;
+    }
+
+    int packetClasses() {
+        return packets.size();
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        inject(event.getPlayer());
+    }
+
+    /**
+     * Adds the handler to every online player; players joining later get it
+     * from {@link #onJoin}.
+     */
+    void start(Iterable<? extends Player> players) {
+        active = true;
+        for (Player player : players) {
+            inject(player);
+        }
+    }
+
+    /**
+     * Stops normalizing and removes the handler from every online player. Any
+     * handler that is still in a pipeline afterwards passes packets through.
+     */
+    void close(Iterable<? extends Player> players) {
+        active = false;
+        for (Player player : players) {
+            Channel channel = channel(player);
+            if (channel == null || !channel.isOpen()) {
+                continue;
+            }
+            channel.eventLoop().execute(() -> {
+                ChannelPipeline channelPipeline = channel.pipeline();
+                if (channelPipeline.get(HANDLER_NAME) != null) {
+                    channelPipeline.remove(HANDLER_NAME);
+                }
+            });
+        }
+    }
+
+    private void inject(Player player) {
+        Channel channel = channel(player);
+        if (channel == null || !channel.isOpen()) {
+            return;
+        }
+        String playerName = player.getName();
+        channel.eventLoop().execute(() -> {
+            ChannelPipeline channelPipeline = channel.pipeline();
+            if (!active || channelPipeline.get(HANDLER_NAME) != null) {
+                return;
+            }
+            // Outbound messages travel from the tail towards the head, so a
+            // handler after the encoder still sees the packet object, and one
+            // after the unbundler still sees whole bundles.
+            String base = bundleClass != null && channelPipeline.get(UNBUNDLER_NAME) != null ? UNBUNDLER_NAME : ENCODER_NAME;
+            if (channelPipeline.get(base) != null) {
+                channelPipeline.addAfter(base, HANDLER_NAME, new ComponentHandler(playerName));
+            }
+        });
+    }
+
+    private Channel channel(Player player) {
+        try {
+            ChannelPath path = channelPath;
+            if (path == null) {
+                path = ChannelPath.resolve(player);
+                channelPath = path;
+            }
+            return path.channel(player);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            if (!channelLookupFailed) {
+                channelLookupFailed = true;
+                logger.log(Level.WARNING, "Unable to reach the network channel of " + player.getName()
+                        + "; hover events sent to such players are not normalized.", ex);
+            }
+            return null;
+        }
+    }
+
+    private static Field findField(Class<?> owner, Predicate<Class<?>> type) throws NoSuchFieldException {
+        for (Class<?> current = owner; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && type.test(field.getType())) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        }
+        throw new NoSuchFieldException("No matching field in " + owner.getName());
+    }
+
+    /**
+     * Adds the non-empty components of one packet to the batch. The owner is
+     * the packet and the slot is the index into its component fields.
+     */
+    private static void collect(Object packet, PacketComponents components, ComponentBatch batch)
+            throws IllegalAccessException {
+        Field[] fields = components.fields();
+        for (int index = 0; index < fields.length; index++) {
+            Object handle = fields[index].get(packet);
+            if (handle == null) {
+                continue;
+            }
+            String json = WrappedChatComponent.fromHandle(handle).getJson();
+            if (json != null && !json.isEmpty()) {
+                batch.add(components.packetType(), json, packet, index);
+            }
+        }
+    }
+
+    private void writeBack(ComponentBatch batch) throws IllegalAccessException {
+        for (int index = 0; index < batch.size(); index++) {
+            if (!batch.changed(index)) {
+                continue;
+            }
+            Object packet = batch.owner(index);
+            Object original = packets.get(packet.getClass()).fields()[batch.slot(index)].get(packet);
+            replace(packet, original, WrappedChatComponent.fromJson(batch.normalized(index)).getHandle());
+        }
+    }
+
+    /**
+     * Writes a new component into the packet through ProtocolLib, which knows
+     * how to update final and record fields. The slot is found by identity so
+     * it does not depend on ProtocolLib's field ordering.
+     */
+    private void replace(Object packet, Object original, Object replacement) {
+        StructureModifier<Object> modifier = PacketContainer.fromPacket(packet).getModifier().withType(componentClass);
+        for (int index = 0; index < modifier.size(); index++) {
+            if (modifier.read(index) == original) {
+                modifier.write(index, replacement);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Per-connection handler. It only ever runs on the channel's event loop,
+     * so the batch is reused for every packet without synchronization. Its
+     * HUD memo lives and dies with the connection.
+     */
+    private final class ComponentHandler extends ChannelOutboundHandlerAdapter {
+        private final String playerName;
+        private final ComponentBatch batch = new ComponentBatch();
+        private final HudChannelMemo.PlayerMemo hudMemo = new HudChannelMemo.PlayerMemo();
+
+        private ComponentHandler(String playerName) {
+            this.playerName = playerName;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            Class<?> type = msg.getClass();
+            PacketComponents components = packets.get(type);
+            if (components != null || type == bundleClass) {
+                try {
+                    normalize(msg, components);
+                } catch (Exception ex) {
+                    logger.log(Level.SEVERE, "Failed to normalize packet "
+                            + (components != null ? components.packetType() : PacketType.Play.Server.BUNDLE.name()), ex);
+                } finally {
+                    batch.clear();
+                }
+            }
+            super.write(ctx, msg, promise);
+        }
+
+        private void normalize(Object msg, PacketComponents components) throws IllegalAccessException {
+            PluginState current = state.get();
+            if (!active || current == null || !current.settings().normalizationEnabled()) {
+                return;
+            }
+
+            HudChannelMemo.Channel hudChannel = null;
+            Object qualifier = null;
+            if (components != null) {
+                collect(msg, components, batch);
+                if (components.hudChannel() != null && current.settings().normalizationHudMemo() && batch.size() > 0) {
+                    hudChannel = components.hudChannel();
+                    qualifier = components.qualifier() != null ? components.qualifier().get(msg) : null;
+                    hudMemo.resolve(batch, hudChannel, qualifier, current.settings().normalizationOptions());
+                }
+            } else if (bundlePackets.get(msg) instanceof Iterable<?> members) {
+                for (Object member : members) {
+                    PacketComponents memberComponents = member != null ? packets.get(member.getClass()) : null;
+                    if (memberComponents != null) {
+                        collect(member, memberComponents, batch);
+                    }
+                }
+            }
+
+            if (pipeline.normalizeBatch(batch, current, playerName) > 0) {
+                writeBack(batch);
+            }
+            if (batch.failure() != null) {
+                throw batch.failure();
+            }
+            if (hudChannel != null) {
+                hudMemo.remember(batch, hudChannel, qualifier);
+            }
+        }
+    }
+
+    /**
+     * Field path {@code ServerPlayer -> packet listener -> connection ->
+     * channel}. Field names are obfuscated on some server versions, so the
+     * fields are matched by their types.
+     */
+    private record ChannelPath(Method handle, Field packetListener, Field connection, Field channel) {
+        static ChannelPath resolve(Player player) throws ReflectiveOperationException {
+            Method handle = player.getClass().getMethod("getHandle");
+            Field packetListener = findField(handle.invoke(player).getClass(),
+                    type -> PACKET_LISTENER_TYPES.contains(type.getSimpleName()));
+            Field connection = findField(packetListener.getType(), type -> CONNECTION_TYPES.contains(type.getSimpleName()));
+            return new ChannelPath(handle, packetListener, connection, findField(connection.getType(), Channel.class::equals));
+        }
+
+        Channel channel(Player player) throws ReflectiveOperationException {
+            Object listener = packetListener.get(handle.invoke(player));
+            Object networkConnection = listener != null ? connection.get(listener) : null;
+            return networkConnection != null ? (Channel) channel.get(networkConnection) : null;
+        }
+    }
+
+    /**
+     * Component typed instance fields of one packet class, including fields
+     * declared by its superclasses. HUD packets also carry their
+     * {@link HudChannelMemo} channel and, for boss bars and scoreboards, the
+     * field holding the id or name that qualifies it.
+     */
+    record PacketComponents(String packetType,
+                            Field[] fields,
+                            HudChannelMemo.Channel hudChannel,
+                            Field qualifier) {
+        static PacketComponents of(String packetType, Class<?> packetClass, Class<?> componentClass) {
+            List<Field> fields = instanceFields(packetClass, componentClass);
+            if (fields.isEmpty()) {
+                return null;
+            }
+            HudChannelMemo.Channel hudChannel = HudChannelMemo.Channel.of(packetType);
+            Field qualifier = null;
+            if (hudChannel != null && hudChannel.qualifierType() != null) {
+                List<Field> candidates = instanceFields(packetClass, hudChannel.qualifierType());
+                qualifier = candidates.isEmpty() ? null : candidates.get(0);
+            }
+            return new PacketComponents(packetType, fields.toArray(Field[]::new), hudChannel, qualifier);
+        }
+
+        private static List<Field> instanceFields(Class<?> packetClass, Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = packetClass; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && type.isAssignableFrom(field.getType())) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields;
+        }
+    }
+}
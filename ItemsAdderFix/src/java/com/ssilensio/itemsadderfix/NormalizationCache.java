@@ -0,0 +1,268 @@
+package com.ssilensio.itemsadderfix;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Remembers what {@link HoverEventUuidNormalizer} produced for payloads that
+ * needed fixing, keyed by a 128-bit fingerprint of the input JSON. The table
+ * is direct-mapped and lock-free: a new entry simply replaces whatever sat in
+ * its slot, which bounds memory without any eviction bookkeeping.
+ *
+ * <p>The cache can be persisted to a snapshot file so a restarted server, or
+ * another backend pointed at the same directory, starts with the payloads it
+ * has already seen. Snapshots carry the normalization rules version and the
+ * conversion options and are ignored when either differs.</p>
+ */
+final class NormalizationCache {
+    static final String FILE_NAME = "normalization-cache.bin";
+
+    private static final int MAGIC = 0x49414643;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MIN_CAPACITY = 64;
+    private static final int MAX_CAPACITY = 1 << 20;
+    private static final int MAX_STRING_BYTES = 1 << 24;
+    private static final HoverEventUuidNormalizer.NormalizationRecord[] NO_RECORDS = {};
+
+    private final HoverEventUuidNormalizer normalizer;
+    private final HoverEventUuidNormalizer.NormalizationOptions options;
+    private final AtomicReferenceArray<Entry> table;
+    private final int mask;
+    private final AtomicLong modifications = new AtomicLong();
+    private final Object saveLock = new Object();
+    private long savedModifications;
+
+    NormalizationCache(HoverEventUuidNormalizer normalizer,
+                       HoverEventUuidNormalizer.NormalizationOptions options,
+                       int maxEntries) {
+        this.normalizer = normalizer;
+        this.options = options;
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, Math.min(MAX_CAPACITY, maxEntries)) * 2 - 1);
+        this.table = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    String normalize(String json, Consumer<HoverEventUuidNormalizer.NormalizationRecord> recordConsumer) {
+        long first = 0xCBF29CE484222325L;
+        long second = 0x9E3779B97F4A7C15L;
+        for (int i = 0, length = json.length(); i < length; i++) {
+            char c = json.charAt(i);
+            first = (first ^ c) * 0x100000001B3L;
+            second = Long.rotateLeft((second + c) * 0xC2B2AE3D27D4EB4FL, 31);
+        }
+        first = mix(first);
+        second = mix(second ^ json.length());
+
+        int index = slot(first);
+        Entry entry = table.get(index);
+        if (entry != null && entry.first == first && entry.second == second && entry.length == json.length()) {
+            if (recordConsumer != null) {
+                for (HoverEventUuidNormalizer.NormalizationRecord record : entry.records) {
+                    recordConsumer.accept(record);
+                }
+            }
+            return entry.normalized;
+        }
+
+        List<HoverEventUuidNormalizer.NormalizationRecord> records = new ArrayList<>(1);
+        String normalized = normalizer.normalize(json, options, record -> {
+            records.add(record);
+            if (recordConsumer != null) {
+                recordConsumer.accept(record);
+            }
+        });
+        if (!records.isEmpty()) {
+            table.set(index, new Entry(first, second, json.length(), normalized, records.toArray(NO_RECORDS)));
+            modifications.incrementAndGet();
+        }
+        return normalized;
+    }
+
+    int size() {
+        int size = 0;
+        for (int i = 0; i < table.length(); i++) {
+            if (table.get(i) != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    boolean isDirty() {
+        synchronized (saveLock) {
+            return modifications.get() != savedModifications;
+        }
+    }
+
+    /**
+     * Merges the entries of a snapshot file into this cache. Entries already
+     * present in memory win over the file. Returns the number of entries taken
+     * from the file, or {@code -1} if the snapshot was written with different
+     * rules or options.
+     */
+    int load(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return 0;
+            }
+            // Read rather than mapped: a mapping outlives the channel until it is
+            // garbage collected, and on Windows it blocks save() from replacing the file.
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Normalization cache snapshot is too large");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Truncated normalization cache snapshot");
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a normalization cache snapshot");
+            }
+            if (buffer.getInt() != FORMAT_VERSION
+                    || buffer.getInt() != HoverEventUuidNormalizer.RULES_VERSION
+                    || buffer.getInt() != optionBits()) {
+                return -1;
+            }
+
+            int count = buffer.getInt();
+            int loaded = 0;
+            for (int i = 0; i < count; i++) {
+                long first = buffer.getLong();
+                long second = buffer.getLong();
+                int length = buffer.getInt();
+                String normalized = readString(buffer);
+                int recordCount = buffer.getInt();
+                if (recordCount < 0 || recordCount > buffer.remaining()) {
+                    throw new IOException("Corrupt normalization cache snapshot");
+                }
+                HoverEventUuidNormalizer.NormalizationRecord[] records =
+                        new HoverEventUuidNormalizer.NormalizationRecord[recordCount];
+                for (int r = 0; r < recordCount; r++) {
+                    records[r] = new HoverEventUuidNormalizer.NormalizationRecord(readString(buffer), readString(buffer));
+                }
+                if (table.compareAndSet(slot(first), null, new Entry(first, second, length, normalized, records))) {
+                    loaded++;
+                }
+            }
+            return loaded;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Truncated normalization cache snapshot", ex);
+        }
+    }
+
+    /**
+     * Writes the cache to {@code file}. When the file already holds a
+     * compatible snapshot, for example one written by another server sharing
+     * the directory, its entries are merged in first so servers accumulate
+     * rather than overwrite each other's work.
+     */
+    int save(Path file) throws IOException {
+        synchronized (saveLock) {
+            long modificationsAtSave = modifications.get();
+            try {
+                load(file);
+            } catch (IOException ignored) {
+                // An unreadable snapshot is simply replaced.
+            }
+
+            List<Entry> entries = new ArrayList<>();
+            for (int i = 0; i < table.length(); i++) {
+                Entry entry = table.get(i);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, FILE_NAME, ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeInt(HoverEventUuidNormalizer.RULES_VERSION);
+                    out.writeInt(optionBits());
+                    out.writeInt(entries.size());
+                    for (Entry entry : entries) {
+                        out.writeLong(entry.first);
+                        out.writeLong(entry.second);
+                        out.writeInt(entry.length);
+                        writeString(out, entry.normalized);
+                        out.writeInt(entry.records.length);
+                        for (HoverEventUuidNormalizer.NormalizationRecord record : entry.records) {
+                            writeString(out, record.originalPayload());
+                            writeString(out, record.normalizedUuid());
+                        }
+                    }
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            savedModifications = modificationsAtSave;
+            return entries.size();
+        }
+    }
+
+    private int optionBits() {
+        return (options.convertIntArrayPayloads() ? 1 : 0) | (options.convertUuidObjectPayloads() ? 2 : 0);
+    }
+
+    private int slot(long first) {
+        return (int) (first ^ (first >>> 32)) & mask;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0 || length > MAX_STRING_BYTES || length > buffer.remaining()) {
+            throw new IOException("Corrupt normalization cache snapshot");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private record Entry(long first,
+                         long second,
+                         int length,
+                         String normalized,
+                         HoverEventUuidNormalizer.NormalizationRecord[] records) {}
+}
@@ -0,0 +1,172 @@
+package com.ssilensio.itemsadderfix;
+
+import com.ssilensio.itemsadderfix.logging.HandledErrorLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Normalizes component JSON the way the packet listeners do:
+ * through the normalization cache when one is configured, with audit and
+ * debug logging of every fix, with sampling into the capture ring and into the
+ * traffic recording. Packet specific code only has to find the components and
+ * write them back.
+ */
+final class NormalizationPipeline {
+    private final HoverEventUuidNormalizer normalizer;
+    private final PluginMetrics metrics;
+    private final Consumer<HoverEventUuidNormalizer.NormalizationRecord> fixCounter;
+
+    NormalizationPipeline(HoverEventUuidNormalizer normalizer) {
+        this(normalizer, new PluginMetrics());
+    }
+
+    NormalizationPipeline(HoverEventUuidNormalizer normalizer, PluginMetrics metrics) {
+        this.normalizer = normalizer;
+        this.metrics = metrics;
+        this.fixCounter = record -> metrics.recordFix(record.normalizedUuid());
+    }
+
+    HoverEventUuidNormalizer normalizer() {
+        return normalizer;
+    }
+
+    /**
+     * Normalizes every component of a batch, usually one packet or one bundle
+     * of packets, in place. The whole batch shares one fix consumer, and its
+     * audit entries are written in a single pass once the batch is done. A
+     * component that fails is left unchanged and reported through
+     * {@link ComponentBatch#failure()} so the rest of the batch still goes out
+     * fixed. Components that already have a result are only recorded and
+     * counted. Batch size, rewrites, time spent and every fix go to
+     * {@link PluginMetrics}.
+     * Returns the number of changed components.
+     */
+    int normalizeBatch(ComponentBatch batch, PluginState current, String playerName) {
+        return normalizeBatch(batch, current, playerName, true);
+    }
+
+    /**
+     * Same as {@link #normalizeBatch(ComponentBatch, PluginState, String)} for
+     * components that are not being sent to a player: they are kept out of
+     * the traffic recording and the packet metrics. Their fixes still count
+     * towards the audit summary.
+     */
+    int normalizeUnrecordedBatch(ComponentBatch batch, PluginState current) {
+        return normalizeBatch(batch, current, null, false);
+    }
+
+    private int normalizeBatch(ComponentBatch batch, PluginState current, String playerName, boolean packets) {
+        int size = batch.size();
+        if (size == 0) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        TrafficRecorder recorder = packets ? current.trafficRecorder() : null;
+        CaptureRing capture = current.captureRing();
+        NormalizationCache cache = current.normalizationCache();
+        HoverEventUuidNormalizer.NormalizationOptions options = current.settings().normalizationOptions();
+        BatchFixLogger batchLogger = current.handledErrorLogger() != null || current.debugLog() != null
+                ? new BatchFixLogger(current, playerName, metrics)
+                : null;
+        Consumer<HoverEventUuidNormalizer.NormalizationRecord> fixLogger =
+                batchLogger != null ? batchLogger : fixCounter;
+
+        int changed = 0;
+        for (int index = 0; index < size; index++) {
+            String json = batch.json(index);
+            String packetType = batch.packetType(index);
+            if (recorder != null) {
+                recorder.record(packetType, playerName, json);
+            }
+            if (batch.resolved(index)) {
+                if (batch.changed(index)) {
+                    if (packets) {
+                        metrics.recordRewrite(packetType);
+                    }
+                    changed++;
+                }
+                continue;
+            }
+            if (batchLogger != null) {
+                batchLogger.packetType = packetType;
+            }
+            String normalized;
+            try {
+                normalized = cache != null
+                        ? cache.normalize(json, fixLogger)
+                        : normalizer.normalize(json, options, fixLogger);
+            } catch (RuntimeException ex) {
+                if (capture != null) {
+                    capture.recordError(packetType, playerName, json, ex);
+                }
+                if (packets) {
+                    metrics.recordFailure();
+                }
+                batch.fail(ex);
+                continue;
+            }
+            if (capture != null) {
+                capture.offer(packetType, playerName, json, normalized);
+            }
+            batch.setNormalized(index, normalized);
+            if (batch.changed(index)) {
+                if (packets) {
+                    metrics.recordRewrite(packetType);
+                }
+                changed++;
+            }
+        }
+        if (batchLogger != null) {
+            batchLogger.flush();
+        }
+        if (packets) {
+            metrics.recordNormalization(size, changed, System.nanoTime() - started);
+        }
+        return changed;
+    }
+
+    /**
+     * Fix consumer shared by all components of a batch. Audit entries are
+     * buffered until {@link #flush()}.
+     */
+    private static final class BatchFixLogger implements Consumer<HoverEventUuidNormalizer.NormalizationRecord> {
+        private final HandledErrorLogger handledErrorLogger;
+        private final boolean includeOriginal;
+        private final DebugLog debugLog;
+        private final String playerName;
+        private final PluginMetrics metrics;
+        private final List<HandledErrorLogger.Entry> auditEntries = new ArrayList<>(2);
+        private String packetType;
+
+        private BatchFixLogger(PluginState current, String playerName, PluginMetrics metrics) {
+            this.handledErrorLogger = current.handledErrorLogger();
+            this.includeOriginal = current.settings().audit().includeOriginal();
+            this.debugLog = current.debugLog();
+            this.playerName = playerName;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void accept(HoverEventUuidNormalizer.NormalizationRecord record) {
+            metrics.recordFix(record.normalizedUuid());
+            if (handledErrorLogger != null) {
+                auditEntries.add(new HandledErrorLogger.Entry(
+                        includeOriginal ? record.originalPayload() : null, record.normalizedUuid()));
+            }
+            if (debugLog != null && debugLog.accepts(playerName, packetType)) {
+                String type = packetType;
+                debugLog.log(DebugLog.Category.NORMALIZATION, playerName, type,
+                        () -> "Normalized hoverEvent UUID " + record.originalPayload() + " -> " + record.normalizedUuid()
+                                + " in " + type + (playerName != null ? " for " + playerName : "") + ".");
+            }
+        }
+
+        private void flush() {
+            if (!auditEntries.isEmpty()) {
+                handledErrorLogger.logNormalizations(auditEntries);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ssilensio.itemsadderfix;
+
+import java.util.UUID;
+
+/**
+ * Reusable per-player view handed to {@link BlockDigSanitizer} so dig packets
+ * can be evaluated without allocating capturing lambdas. A context is bound to
+ * the player's current world once per packet; it is only ever used by the
+ * player's own connection thread, so the bound state needs no synchronization.
+ */
+final class PlayerDigContext implements BlockDigSanitizer.ChunkLoadChecker, BlockDigSanitizer.PositionSource {
+    private final PlayerPositionSnapshot snapshot;
+    private final LoadedChunkIndex loadedChunks;
+    private UUID worldId;
+    private LoadedChunkIndex.WorldChunks chunks;
+
+    PlayerDigContext(PlayerPositionSnapshot snapshot, LoadedChunkIndex loadedChunks) {
+        this.snapshot = snapshot;
+        this.loadedChunks = loadedChunks;
+    }
+
+    PlayerPositionSnapshot snapshot() {
+        return snapshot;
+    }
+
+    PlayerDigContext bind() {
+        worldId = snapshot.worldId();
+        chunks = loadedChunks.world(worldId);
+        return this;
+    }
+
+    @Override
+    public boolean isChunkLoaded(int chunkX, int chunkZ) {
+        LoadedChunkIndex.WorldChunks current = chunks;
+        return current == null || current.isChunkLoaded(chunkX, chunkZ);
+    }
+
+    @Override
+    public long currentPackedPosition() {
+        return snapshot.positionIn(worldId);
+    }
+
+    @Override
+    public int minBuildHeight() {
+        LoadedChunkIndex.WorldChunks current = chunks;
+        return current != null ? current.minHeight() : Integer.MIN_VALUE;
+    }
+
+    @Override
+    public int maxBuildHeight() {
+        LoadedChunkIndex.WorldChunks current = chunks;
+        return current != null ? current.maxHeight() : Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ssilensio.itemsadderfix;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Last known block position and world of a player, written from the server
+ * side whenever the player changes block and read from packet threads. Reads
+ * never lock or allocate; a sequence counter lets readers obtain position and
+ * world as a consistent pair even while a teleport is being published.
+ */
+final class PlayerPositionSnapshot {
+    private final Object writeLock = new Object();
+    private volatile int sequence;
+    private volatile long position = BlockPositions.NO_POSITION;
+    private volatile UUID worldId;
+
+    void update(UUID worldId, int x, int y, int z) {
+        long packed = BlockPositions.pack(x, y, z);
+        synchronized (writeLock) {
+            if (position == packed && Objects.equals(this.worldId, worldId)) {
+                return;
+            }
+            sequence++;
+            this.worldId = worldId;
+            this.position = packed;
+            sequence++;
+        }
+    }
+
+    long position() {
+        return position;
+    }
+
+    UUID worldId() {
+        return worldId;
+    }
+
+    long positionIn(UUID expectedWorld) {
+        while (true) {
+            int before = sequence;
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            UUID world = worldId;
+            long packed = position;
+            if (sequence == before) {
+                return Objects.equals(world, expectedWorld) ? packed : BlockPositions.NO_POSITION;
+            }
+        }
+    }
+}
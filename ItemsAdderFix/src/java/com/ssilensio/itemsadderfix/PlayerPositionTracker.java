@@ -0,0 +1,93 @@
+package com.ssilensio.itemsadderfix;
+
+import com.ssilensio.itemsadderfix.util.ConcurrentIntObjectMap;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+final class PlayerPositionTracker implements Listener {
+    private final ConcurrentIntObjectMap<PlayerDigContext> contexts = new ConcurrentIntObjectMap<>();
+    private final LoadedChunkIndex loadedChunks;
+
+    PlayerPositionTracker(LoadedChunkIndex loadedChunks) {
+        this.loadedChunks = loadedChunks;
+    }
+
+    PlayerDigContext context(int entityId) {
+        return contexts.get(entityId);
+    }
+
+    PlayerPositionSnapshot snapshot(int entityId) {
+        PlayerDigContext context = contexts.get(entityId);
+        return context != null ? context.snapshot() : null;
+    }
+
+    void seed(Iterable<? extends Player> players, PluginScheduler scheduler) {
+        for (Player player : players) {
+            scheduler.runForEntity(player, () -> update(player, player.getLocation()));
+        }
+    }
+
+    void clear() {
+        contexts.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (to == null || (from.getBlockX() == to.getBlockX()
+                && from.getBlockY() == to.getBlockY()
+                && from.getBlockZ() == to.getBlockZ())) {
+            return;
+        }
+        update(event.getPlayer(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleport(PlayerTeleportEvent event) {
+        update(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        update(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChangedWorld(PlayerChangedWorldEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        contexts.remove(event.getPlayer().getEntityId());
+    }
+
+    private void update(Player player, Location location) {
+        if (location == null) {
+            return;
+        }
+        World world = location.getWorld();
+        if (world == null) {
+            return;
+        }
+        contexts.computeIfAbsent(player.getEntityId(), ignored -> new PlayerDigContext(new PlayerPositionSnapshot(), loadedChunks))
+                .snapshot()
+                .update(world.getUID(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+}
@@ -0,0 +1,188 @@
+package com.ssilensio.itemsadderfix;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention-free counters updated from packet threads. Values are only ever
+ * summed when someone asks for them, so recording costs a striped increment.
+ */
+final class PluginMetrics {
+    static final String REWRITES_PREFIX = "rewrites.";
+    static final int MAX_TRACKED_FIXES = 256;
+
+    // Indexed by BlockDigSanitizer reason.
+    private static final String[] DIG_CANCEL_KEYS = {
+            "dig_cancels.invalid", "dig_cancels.unloaded_chunk", "dig_cancels.out_of_reach",
+            "dig_cancels.outside_world", "dig_cancels.orphan", "dig_cancels.mismatched"
+    };
+
+    private final long startedAt = System.currentTimeMillis();
+    private final LongAdder components = new LongAdder();
+    private final LongAdder rewrites = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder normalizationNanos = new LongAdder();
+    private final Map<String, LongAdder> rewritesByPacketType = new ConcurrentHashMap<>();
+    private final LongAdder[] digCancels = new LongAdder[BlockDigSanitizer.REASON_COUNT];
+    private final LongAdder digReplacements = new LongAdder();
+    private final LongAdder digAcknowledgements = new LongAdder();
+    private final LongAdder interactionCancels = new LongAdder();
+    private final LongAdder serviceNormalizations = new LongAdder();
+    private final LongAdder serviceRewrites = new LongAdder();
+    private final LongAdder fixes = new LongAdder();
+    private final Map<String, LongAdder> fixesByUuid = new ConcurrentHashMap<>();
+
+    PluginMetrics() {
+        for (int i = 0; i < digCancels.length; i++) {
+            digCancels[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one normalized batch: how many components it held, how many
+     * were rewritten and how long it took.
+     */
+    void recordNormalization(int batchComponents, int batchRewrites, long nanos) {
+        components.add(batchComponents);
+        if (batchRewrites > 0) {
+            rewrites.add(batchRewrites);
+        }
+        normalizationNanos.add(nanos);
+    }
+
+    void recordRewrite(String packetType) {
+        LongAdder count = rewritesByPacketType.get(packetType);
+        if (count == null) {
+            count = rewritesByPacketType.computeIfAbsent(packetType, ignored -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * Records one converted legacy payload for the audit summary, keyed by the
+     * UUID it was converted to. Only the first {@link #MAX_TRACKED_FIXES}
+     * distinct UUIDs are counted individually; later ones only add to the
+     * total.
+     */
+    void recordFix(String normalizedUuid) {
+        fixes.increment();
+        LongAdder count = fixesByUuid.get(normalizedUuid);
+        if (count == null) {
+            if (normalizedUuid == null || fixesByUuid.size() >= MAX_TRACKED_FIXES) {
+                return;
+            }
+            count = fixesByUuid.computeIfAbsent(normalizedUuid, ignored -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    void recordDigCancel(int reason) {
+        digCancels[reason >= 0 && reason < digCancels.length ? reason : 0].increment();
+    }
+
+    void recordDigReplacement() {
+        digReplacements.increment();
+    }
+
+    void recordDigAcknowledgement() {
+        digAcknowledgements.increment();
+    }
+
+    void recordInteractionCancel() {
+        interactionCancels.increment();
+    }
+
+    void recordServiceNormalization(boolean rewritten) {
+        serviceNormalizations.increment();
+        if (rewritten) {
+            serviceRewrites.increment();
+        }
+    }
+
+    long digCancels(int reason) {
+        return digCancels[reason].sum();
+    }
+
+    long digReplacements() {
+        return digReplacements.sum();
+    }
+
+    long digAcknowledgements() {
+        return digAcknowledgements.sum();
+    }
+
+    long interactionCancels() {
+        return interactionCancels.sum();
+    }
+
+    long serviceNormalizations() {
+        return serviceNormalizations.sum();
+    }
+
+    long serviceRewrites() {
+        return serviceRewrites.sum();
+    }
+
+    /**
+     * Epoch milliseconds at which the counters started from zero.
+     */
+    long startedAt() {
+        return startedAt;
+    }
+
+    long components() {
+        return components.sum();
+    }
+
+    long rewrites() {
+        return rewrites.sum();
+    }
+
+    /**
+     * Sums every counter into a name-sorted map of totals since the plugin
+     * was enabled. Rewrites per packet type use {@link #REWRITES_PREFIX}.
+     */
+    Map<String, Long> snapshot() {
+        Map<String, Long> counters = new TreeMap<>();
+        counters.put("components", components.sum());
+        counters.put("rewrites", rewrites.sum());
+        counters.put("failures", failures.sum());
+        counters.put("normalization_nanos", normalizationNanos.sum());
+        for (int i = 0; i < digCancels.length; i++) {
+            counters.put(i < DIG_CANCEL_KEYS.length ? DIG_CANCEL_KEYS[i] : "dig_cancels." + i, digCancels[i].sum());
+        }
+        counters.put("dig_replacements", digReplacements.sum());
+        counters.put("dig_acknowledgements", digAcknowledgements.sum());
+        counters.put("interaction_cancels", interactionCancels.sum());
+        counters.put("service_normalizations", serviceNormalizations.sum());
+        counters.put("service_rewrites", serviceRewrites.sum());
+        counters.put("fixes", fixes.sum());
+        counters.put("fixed_uuids", (long) fixesByUuid.size());
+        rewritesByPacketType.forEach((packetType, count) -> counters.put(REWRITES_PREFIX + packetType, count.sum()));
+        return counters;
+    }
+
+    /**
+     * Returns the UUIDs whose legacy payloads were fixed most often, most
+     * frequent first, with their running counts.
+     */
+    Map<String, Long> topFixes(int limit) {
+        List<Map.Entry<String, Long>> fixed = new ArrayList<>(fixesByUuid.size());
+        fixesByUuid.forEach((uuid, count) -> fixed.add(Map.entry(uuid, count.sum())));
+        fixed.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (int i = 0; i < fixed.size() && i < limit; i++) {
+            top.put(fixed.get(i).getKey(), fixed.get(i).getValue());
+        }
+        return top;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ssilensio.itemsadderfix;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thin wrapper over Paper's region-aware schedulers. The same calls run on
+ * the main thread on Paper and on the owning region or entity thread on
+ * Folia, so nothing in the plugin has to assume a single server thread.
+ * Plain Spigot, which lacks those schedulers, falls back to the Bukkit one.
+ */
+final class PluginScheduler {
+    private static final boolean REGION_SCHEDULERS = hasRegionSchedulers();
+
+    private final Plugin plugin;
+    private volatile boolean cancelled;
+
+    PluginScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    void runAsync(Runnable task) {
+        if (REGION_SCHEDULERS) {
+            plugin.getServer().getAsyncScheduler().runNow(plugin, scheduledTask -> task.run());
+        } else {
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task);
+        }
+    }
+
+    void runGlobal(Runnable task) {
+        if (REGION_SCHEDULERS) {
+            plugin.getServer().getGlobalRegionScheduler().execute(plugin, task);
+        } else {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+    }
+
+    void runAsyncAtFixedRate(Runnable task, long period, TimeUnit unit) {
+        if (REGION_SCHEDULERS) {
+            plugin.getServer().getAsyncScheduler().runAtFixedRate(plugin, scheduledTask -> task.run(), period, period, unit);
+        } else {
+            long ticks = Math.max(1L, unit.toMillis(period) / 50L);
+            plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, task, ticks, ticks);
+        }
+    }
+
+    /**
+     * Entity schedulers cannot cancel a plugin's tasks in bulk, so tasks
+     * queued on them do nothing once {@link #cancelAll()} has run.
+     */
+    void runForEntity(Entity entity, Runnable task) {
+        if (REGION_SCHEDULERS) {
+            entity.getScheduler().run(plugin, scheduledTask -> {
+                if (!cancelled) {
+                    task.run();
+                }
+            }, null);
+        } else {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+    }
+
+    void cancelAll() {
+        cancelled = true;
+        if (REGION_SCHEDULERS) {
+            plugin.getServer().getAsyncScheduler().cancelTasks(plugin);
+            plugin.getServer().getGlobalRegionScheduler().cancelTasks(plugin);
+        } else {
+            plugin.getServer().getScheduler().cancelTasks(plugin);
+        }
+    }
+
+    private static boolean hasRegionSchedulers() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.scheduler.AsyncScheduler");
+            return true;
+        } catch (ClassNotFoundException ex) {
+            return false;
+        }
+    }
+}
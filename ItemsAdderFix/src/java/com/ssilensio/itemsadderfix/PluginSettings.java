@@ -0,0 +1,226 @@
+package com.ssilensio.itemsadderfix;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Immutable view of config.yml. A new instance is parsed on every reload and
+ * published as part of {@link PluginState}, so packet threads never observe a
+ * half-applied configuration.
+ */
+record PluginSettings(boolean enabled,
+                      boolean debug,
+                      DebugLogSettings debugLog,
+                      AuditSettings audit,
+                      boolean normalizationEnabled,
+                      InjectionMode normalizationInjection,
+                      boolean normalizationHudMemo,
+                      HoverEventUuidNormalizer.NormalizationOptions normalizationOptions,
+                      CacheSettings normalizationCache,
+                      SanitizationSettings sanitization,
+                      WarmupSettings warmup,
+                      CaptureSettings capture,
+                      RecordingSettings recording,
+                      ExportSettings export) {
+    private static final String CONFIG_LOGGING = "logging.handled_errors.";
+    private static final String CONFIG_NORMALIZATION = "normalization.hover_event_uuid.";
+    private static final String CONFIG_NORMALIZATION_CACHE = CONFIG_NORMALIZATION + "cache.";
+    private static final String CONFIG_SANITIZATION = "sanitization.";
+    private static final String CONFIG_DIG_RATE_LIMIT = CONFIG_SANITIZATION + "dig_rate_limit.";
+
+    static PluginSettings load(ConfigurationSection config) {
+        AuditSettings audit = new AuditSettings(
+                config.getBoolean(CONFIG_LOGGING + "enabled", true),
+                config.getString(CONFIG_LOGGING + "file", "handled-errors.xml"),
+                config.getBoolean(CONFIG_LOGGING + "include_original_payload", true),
+                config.getBoolean(CONFIG_LOGGING + "include_normalized_payload", true)
+        );
+        HoverEventUuidNormalizer.NormalizationOptions options = new HoverEventUuidNormalizer.NormalizationOptions(
+                config.getBoolean(CONFIG_NORMALIZATION + "convert.int_array", true),
+                config.getBoolean(CONFIG_NORMALIZATION + "convert.uuid_object", true)
+        );
+        CacheSettings cache = new CacheSettings(
+                config.getBoolean(CONFIG_NORMALIZATION_CACHE + "enabled", true),
+                config.getInt(CONFIG_NORMALIZATION_CACHE + "max_entries", 4096),
+                config.getBoolean(CONFIG_NORMALIZATION_CACHE + "persist", true),
+                Math.max(10, config.getInt(CONFIG_NORMALIZATION_CACHE + "save_interval_seconds", 300)),
+                config.getString(CONFIG_NORMALIZATION_CACHE + "shared_directory", "")
+        );
+        RateLimitSettings rateLimit = new RateLimitSettings(
+                config.getBoolean(CONFIG_DIG_RATE_LIMIT + "enabled", true),
+                config.getInt(CONFIG_DIG_RATE_LIMIT + "packets_per_second", 40),
+                config.getInt(CONFIG_DIG_RATE_LIMIT + "burst", 80),
+                config.getBoolean(CONFIG_DIG_RATE_LIMIT + "log_offenders", true),
+                Math.max(1, config.getInt(CONFIG_DIG_RATE_LIMIT + "summary_interval_seconds", 60))
+        );
+        SanitizationSettings sanitization = new SanitizationSettings(
+                config.getBoolean(CONFIG_SANITIZATION + "prevent_unloaded_chunk_dig", true),
+                config.getInt(CONFIG_SANITIZATION + "max_dig_distance", 12),
+                config.getBoolean(CONFIG_SANITIZATION + "drop_orphan_dig_packets", true),
+                config.getBoolean(CONFIG_SANITIZATION + "acknowledge_cancelled_digs", true),
+                config.getBoolean(CONFIG_SANITIZATION + "unloaded_chunk_interactions.use_item_on", true),
+                rateLimit
+        );
+        return new PluginSettings(
+                config.getBoolean("enabled", true),
+                config.getBoolean("debug", false),
+                new DebugLogSettings(
+                        Math.max(1, config.getInt("debug_log.max_messages_per_second", 20)),
+                        Math.max(16, config.getInt("debug_log.queue_capacity", 1024)),
+                        Math.max(1, config.getInt("debug_log.summary_interval_seconds", 10))
+                ),
+                audit,
+                config.getBoolean(CONFIG_NORMALIZATION + "enabled", true),
+                InjectionMode.parse(config.getString(CONFIG_NORMALIZATION + "injection", "protocollib")),
+                config.getBoolean(CONFIG_NORMALIZATION + "hud_memo", true),
+                options,
+                cache,
+                sanitization,
+                new WarmupSettings(
+                        config.getBoolean("warmup.enabled", true),
+                        Math.max(1, config.getInt("warmup.iterations", 5000))
+                ),
+                new CaptureSettings(
+                        config.getBoolean("capture.enabled", true),
+                        Math.max(1, config.getInt("capture.capacity", 256)),
+                        Math.max(1, config.getInt("capture.sample_rate", 1000)),
+                        config.getBoolean("capture.always_capture_fixes", true),
+                        config.getBoolean("capture.freeze_on_error", true)
+                ),
+                new RecordingSettings(
+                        config.getBoolean("recording.enabled", false),
+                        config.getString("recording.directory", "recordings"),
+                        config.getBoolean("recording.anonymize_players", true),
+                        Math.max(1, config.getInt("recording.max_megabytes", 256))
+                ),
+                new ExportSettings(
+                        config.getBoolean("export.enabled", false),
+                        config.getString("export.server_id", ""),
+                        config.getString("export.target", "unix:/tmp/itemsadderfix-metrics.sock"),
+                        Math.max(1, config.getInt("export.interval_seconds", 10)),
+                        Math.max(1, config.getInt("export.spool_max_megabytes", 16))
+                )
+        );
+    }
+
+    /**
+     * Settings for running the normalizer outside the server, for example when
+     * replaying a traffic recording: normalization only, no logging, capture,
+     * export or packet sanitization.
+     */
+    static PluginSettings offline(HoverEventUuidNormalizer.NormalizationOptions options, boolean useCache) {
+        return new PluginSettings(
+                true,
+                false,
+                new DebugLogSettings(1, 16, 1),
+                new AuditSettings(false, "", false, false),
+                true,
+                InjectionMode.PROTOCOLLIB,
+                false,
+                options,
+                new CacheSettings(useCache, 4096, false, 300, ""),
+                new SanitizationSettings(false, 0, false, false, false,
+                        new RateLimitSettings(false, 0, 0, false, 1)),
+                new WarmupSettings(false, 1),
+                new CaptureSettings(false, 1, 1, false, false),
+                new RecordingSettings(false, "", false, 1),
+                new ExportSettings(false, "", "", 1, 1)
+        );
+    }
+
+    /**
+     * How outgoing packets reach the hover event normalizer: through a
+     * ProtocolLib listener, or through a handler in each player's Netty
+     * pipeline that skips ProtocolLib's event dispatch.
+     */
+    enum InjectionMode {
+        PROTOCOLLIB,
+        NETTY;
+
+        static InjectionMode parse(String value) {
+            return value != null && value.trim().toLowerCase(Locale.ROOT).equals("netty") ? NETTY : PROTOCOLLIB;
+        }
+    }
+
+    record DebugLogSettings(int maxMessagesPerSecond, int queueCapacity, int summaryIntervalSeconds) {}
+
+    record AuditSettings(boolean enabled, String fileName, boolean includeOriginal, boolean includeNormalized) {
+        boolean active() {
+            return enabled && (includeOriginal || includeNormalized);
+        }
+    }
+
+    record CacheSettings(boolean enabled,
+                         int maxEntries,
+                         boolean persist,
+                         int saveIntervalSeconds,
+                         String sharedDirectory) {
+        /**
+         * Returns where the cache snapshot lives, or {@code null} when the cache
+         * is not persisted.
+         */
+        Path snapshotFile(File dataFolder) {
+            if (!enabled || !persist) {
+                return null;
+            }
+            if (sharedDirectory != null && !sharedDirectory.isBlank()) {
+                return Path.of(sharedDirectory).resolve(NormalizationCache.FILE_NAME);
+            }
+            return dataFolder != null ? dataFolder.toPath().resolve(NormalizationCache.FILE_NAME) : null;
+        }
+    }
+
+    record SanitizationSettings(boolean preventUnloadedChunkDig,
+                                int maxDigDistance,
+                                boolean dropOrphanDigPackets,
+                                boolean acknowledgeCancelledDigs,
+                                boolean preventUnloadedChunkUseItemOn,
+                                RateLimitSettings rateLimit) {
+        /**
+         * Whether dig targets are checked at all. The reach and world height
+         * checks run whenever either option is on; the chunk check only with
+         * {@link #preventUnloadedChunkDig}.
+         */
+        boolean validatesDigTargets() {
+            return preventUnloadedChunkDig || maxDigDistance > 0;
+        }
+
+        boolean needsChunkTracking() {
+            return validatesDigTargets() || preventUnloadedChunkUseItemOn;
+        }
+
+        boolean needsDigListener() {
+            return validatesDigTargets() || dropOrphanDigPackets || rateLimit.enabled();
+        }
+    }
+
+    record RateLimitSettings(boolean enabled,
+                             int packetsPerSecond,
+                             int burst,
+                             boolean logOffenders,
+                             int summaryIntervalSeconds) {}
+
+    record WarmupSettings(boolean enabled, int iterations) {}
+
+    record RecordingSettings(boolean enabled, String directory, boolean anonymizePlayers, int maxMegabytes) {
+        Path directory(File dataFolder) {
+            Path path = Path.of(directory == null || directory.isBlank() ? "recordings" : directory);
+            return path.isAbsolute() || dataFolder == null ? path : dataFolder.toPath().resolve(path);
+        }
+    }
+
+    record CaptureSettings(boolean enabled,
+                           int capacity,
+                           int sampleRate,
+                           boolean alwaysCaptureFixes,
+                           boolean freezeOnError) {}
+
+    record ExportSettings(boolean enabled, String serverId, String target, int intervalSeconds, int spoolMaxMegabytes) {
+        Path spoolFile(File dataFolder) {
+            return dataFolder == null ? null : dataFolder.toPath().resolve("export-spool.bin");
+        }
+    }
+}
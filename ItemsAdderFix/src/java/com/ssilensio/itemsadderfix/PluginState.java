@@ -0,0 +1,175 @@
+package com.ssilensio.itemsadderfix;
+
+import com.ssilensio.itemsadderfix.logging.HandledErrorLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Everything the packet listeners need for one configuration generation. The
+ * plugin swaps the whole state through a single volatile write on reload;
+ * stateful components are carried over when their settings did not change.
+ */
+record PluginState(PluginSettings settings,
+                   BlockDigSanitizer digSanitizer,
+                   DigRateLimiter digRateLimiter,
+                   DigSequenceTracker digSequenceTracker,
+                   HandledErrorLogger handledErrorLogger,
+                   DebugLog debugLog,
+                   NormalizationCache normalizationCache,
+                   CaptureRing captureRing,
+                   TrafficRecorder trafficRecorder,
+                   MetricsExporter metricsExporter) {
+
+    private static final DateTimeFormatter RECORDING_FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int RECORDING_QUEUE_CAPACITY = 65536;
+
+    static PluginState build(PluginSettings settings,
+                             PluginState previous,
+                             HoverEventUuidNormalizer normalizer,
+                             Logger logger,
+                             File dataFolder) {
+        PluginSettings.SanitizationSettings sanitization = settings.sanitization();
+        PluginSettings.RateLimitSettings rateLimit = sanitization.rateLimit();
+
+        DigRateLimiter rateLimiter = null;
+        if (rateLimit.enabled()) {
+            PluginSettings.RateLimitSettings previousRateLimit = previous != null
+                    ? previous.settings().sanitization().rateLimit()
+                    : null;
+            boolean unchanged = previous != null
+                    && previous.digRateLimiter() != null
+                    && previousRateLimit.packetsPerSecond() == rateLimit.packetsPerSecond()
+                    && previousRateLimit.burst() == rateLimit.burst();
+            rateLimiter = unchanged
+                    ? previous.digRateLimiter()
+                    : new DigRateLimiter(rateLimit.packetsPerSecond(), rateLimit.burst());
+        }
+
+        DigSequenceTracker sequenceTracker = null;
+        if (sanitization.dropOrphanDigPackets()) {
+            sequenceTracker = previous != null && previous.digSequenceTracker() != null
+                    ? previous.digSequenceTracker()
+                    : new DigSequenceTracker();
+        }
+
+        HandledErrorLogger auditLogger = null;
+        PluginSettings.AuditSettings audit = settings.audit();
+        if (audit.active()) {
+            if (previous != null && previous.handledErrorLogger() != null && previous.settings().audit().equals(audit)) {
+                auditLogger = previous.handledErrorLogger();
+            } else {
+                auditLogger = new HandledErrorLogger(
+                        logger, dataFolder, audit.fileName(), audit.includeOriginal(), audit.includeNormalized());
+                if (!auditLogger.initialize()) {
+                    auditLogger = null;
+                }
+            }
+        }
+
+        DebugLog debugLog = null;
+        if (settings.debug()) {
+            DebugLog previousDebugLog = previous != null ? previous.debugLog() : null;
+            if (previousDebugLog != null && previousDebugLog.settings().equals(settings.debugLog())) {
+                debugLog = previousDebugLog;
+            } else {
+                debugLog = new DebugLog(logger, settings.debugLog(), System.nanoTime());
+                if (previousDebugLog != null) {
+                    debugLog.copyFilters(previousDebugLog);
+                }
+            }
+        }
+
+        NormalizationCache normalizationCache = null;
+        PluginSettings.CacheSettings cache = settings.normalizationCache();
+        if (cache.enabled()) {
+            boolean unchanged = previous != null
+                    && previous.normalizationCache() != null
+                    && previous.settings().normalizationCache().equals(cache)
+                    && previous.settings().normalizationOptions().equals(settings.normalizationOptions());
+            if (unchanged) {
+                normalizationCache = previous.normalizationCache();
+            } else {
+                normalizationCache = new NormalizationCache(normalizer, settings.normalizationOptions(), cache.maxEntries());
+                loadSnapshot(normalizationCache, cache.snapshotFile(dataFolder), logger);
+            }
+        }
+
+        CaptureRing captureRing = null;
+        PluginSettings.CaptureSettings capture = settings.capture();
+        if (capture.enabled()) {
+            captureRing = previous != null && previous.captureRing() != null && previous.settings().capture().equals(capture)
+                    ? previous.captureRing()
+                    : new CaptureRing(capture.capacity(), capture.sampleRate(),
+                            capture.alwaysCaptureFixes(), capture.freezeOnError());
+        }
+
+        TrafficRecorder trafficRecorder = null;
+        PluginSettings.RecordingSettings recording = settings.recording();
+        if (recording.enabled()) {
+            if (previous != null && previous.trafficRecorder() != null && !previous.trafficRecorder().isClosed()
+                    && previous.settings().recording().equals(recording)) {
+                trafficRecorder = previous.trafficRecorder();
+            } else {
+                Path file = recording.directory(dataFolder)
+                        .resolve("traffic-" + RECORDING_FILE_TIME.format(LocalDateTime.now()) + ".bin");
+                try {
+                    trafficRecorder = new TrafficRecorder(file, recording.anonymizePlayers(),
+                            recording.maxMegabytes() * 1024L * 1024L, RECORDING_QUEUE_CAPACITY);
+                    logger.info("Recording outgoing components to " + file + ".");
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Unable to start traffic recording at " + file, ex);
+                }
+            }
+        }
+
+        MetricsExporter metricsExporter = null;
+        PluginSettings.ExportSettings export = settings.export();
+        if (export.enabled()) {
+            if (previous != null && previous.metricsExporter() != null
+                    && previous.metricsExporter().settings().equals(export)) {
+                metricsExporter = previous.metricsExporter();
+            } else {
+                try {
+                    metricsExporter = new MetricsExporter(export, export.spoolFile(dataFolder), logger);
+                } catch (IllegalArgumentException ex) {
+                    logger.warning("Metrics export is disabled: " + ex.getMessage());
+                }
+            }
+        }
+
+        return new PluginState(
+                settings,
+                new BlockDigSanitizer(sanitization.maxDigDistance()),
+                rateLimiter,
+                sequenceTracker,
+                auditLogger,
+                debugLog,
+                normalizationCache,
+                captureRing,
+                trafficRecorder,
+                metricsExporter
+        );
+    }
+
+    private static void loadSnapshot(NormalizationCache cache, Path file, Logger logger) {
+        if (file == null) {
+            return;
+        }
+        try {
+            int loaded = cache.load(file);
+            if (loaded < 0) {
+                logger.info("Ignoring " + file + " because it was written with different normalization rules or options.");
+            } else if (loaded > 0) {
+                logger.info("Loaded " + loaded + " cached hover event normalizations from " + file + ".");
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Unable to read normalization cache " + file + "; starting empty.", ex);
+        }
+    }
+}
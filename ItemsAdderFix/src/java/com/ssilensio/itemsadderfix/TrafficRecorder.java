@@ -0,0 +1,201 @@
+package com.ssilensio.itemsadderfix;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records outgoing component JSON into a compact binary corpus that
+ * {@link TrafficReplay} can feed back through the normalizer. Packet threads
+ * only enqueue; an async task drains the queue into a buffered stream, and a
+ * full queue drops the sample instead of blocking the sender.
+ *
+ * <p>The file starts with a magic number and a format version. Every record
+ * is prefixed with its length and holds the capture time in epoch
+ * milliseconds, the packet type, the receiving player (empty when unknown)
+ * and the component JSON, all strings as length-prefixed UTF-8.</p>
+ */
+final class TrafficRecorder implements Closeable {
+    static final int MAGIC = 0x49414652;
+    static final int FORMAT_VERSION = 1;
+
+    private static final int MAX_RECORD_BYTES = 16 << 20;
+
+    private final Path file;
+    private final boolean anonymizePlayers;
+    private final long maxBytes;
+    private final ArrayBlockingQueue<Entry> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Map<String, String> aliases = new HashMap<>();
+    private final DataOutputStream out;
+    private long written;
+    private long records;
+    private volatile boolean closed;
+
+    TrafficRecorder(Path file, boolean anonymizePlayers, long maxBytes, int queueCapacity) throws IOException {
+        this.file = file;
+        this.anonymizePlayers = anonymizePlayers;
+        this.maxBytes = maxBytes;
+        this.queue = new ArrayBlockingQueue<>(Math.max(16, queueCapacity));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE_NEW), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        written = 8;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    long records() {
+        return records;
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    void record(String packetType, String playerName, String json) {
+        if (closed) {
+            return;
+        }
+        if (!queue.offer(new Entry(System.currentTimeMillis(), packetType, playerName, json))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Writes everything queued so far. Returns {@code false} once the size
+     * limit has been reached and the recorder closed itself.
+     */
+    synchronized boolean flush() throws IOException {
+        if (closed) {
+            return false;
+        }
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            byte[] packetType = bytes(entry.packetType());
+            byte[] player = bytes(player(entry.playerName()));
+            byte[] json = bytes(entry.json());
+            int length = 8 + 4 + packetType.length + 4 + player.length + 4 + json.length;
+            if (written + 4 + length > maxBytes) {
+                closeLocked();
+                return false;
+            }
+            out.writeInt(length);
+            out.writeLong(entry.timestamp());
+            writeBytes(packetType);
+            writeBytes(player);
+            writeBytes(json);
+            written += 4 + length;
+            records++;
+        }
+        out.flush();
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closeLocked();
+        }
+    }
+
+    private void closeLocked() throws IOException {
+        closed = true;
+        queue.clear();
+        out.close();
+    }
+
+    private String player(String playerName) {
+        if (playerName == null) {
+            return "";
+        }
+        if (!anonymizePlayers) {
+            return playerName;
+        }
+        return aliases.computeIfAbsent(playerName, name -> "player-" + (aliases.size() + 1));
+    }
+
+    private void writeBytes(byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Streams every record of a corpus file to {@code consumer} in file order.
+     */
+    static long read(Path file, EntryConsumer consumer) throws IOException {
+        long count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a traffic recording");
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported traffic recording version " + version);
+            }
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException ex) {
+                    return count;
+                }
+                if (length < 20 || length > MAX_RECORD_BYTES) {
+                    throw new IOException("Corrupt traffic recording record at #" + count);
+                }
+                long timestamp = in.readLong();
+                String packetType = readString(in);
+                String player = readString(in);
+                String json = readString(in);
+                consumer.accept(new Entry(timestamp, packetType, player.isEmpty() ? null : player, json));
+                count++;
+            }
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_RECORD_BYTES) {
+            throw new IOException("Corrupt traffic recording string");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(Entry entry) throws IOException;
+    }
+
+    record Entry(long timestamp, String packetType, String playerName, String json) {}
+}
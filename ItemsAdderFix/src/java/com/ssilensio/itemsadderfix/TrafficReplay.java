@@ -0,0 +1,162 @@
+package com.ssilensio.itemsadderfix;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Feeds a {@link TrafficRecorder} corpus back through the same
+ * {@link NormalizationPipeline} the packet listener uses. Replays either run
+ * flat out, for throughput numbers, or with the recorded gaps between
+ * packets, to reproduce the production load shape.
+ *
+ * <pre>java -cp ItemsAdderFix.jar com.ssilensio.itemsadderfix.TrafficReplay &lt;recording&gt;
+ *     [--paced] [--iterations N] [--no-cache] [--no-int-array] [--no-uuid-object]</pre>
+ */
+public final class TrafficReplay {
+    private final NormalizationPipeline pipeline;
+    private final PluginState state;
+
+    TrafficReplay(NormalizationPipeline pipeline, PluginState state) {
+        this.pipeline = pipeline;
+        this.state = state;
+    }
+
+    public static void main(String[] args) {
+        Path corpus = null;
+        boolean paced = false;
+        boolean useCache = true;
+        boolean convertIntArrays = true;
+        boolean convertUuidObjects = true;
+        int iterations = 1;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--paced" -> paced = true;
+                case "--no-cache" -> useCache = false;
+                case "--no-int-array" -> convertIntArrays = false;
+                case "--no-uuid-object" -> convertUuidObjects = false;
+                case "--iterations" -> {
+                    if (i + 1 >= args.length) {
+                        usageError();
+                        return;
+                    }
+                    try {
+                        iterations = Math.max(1, Integer.parseInt(args[++i]));
+                    } catch (NumberFormatException ex) {
+                        usageError();
+                        return;
+                    }
+                }
+                case "-h", "--help" -> {
+                    usage(System.out);
+                    return;
+                }
+                default -> {
+                    if (args[i].startsWith("--") || corpus != null) {
+                        usageError();
+                        return;
+                    }
+                    corpus = Path.of(args[i]);
+                }
+            }
+        }
+        if (corpus == null) {
+            usageError();
+            return;
+        }
+
+        HoverEventUuidNormalizer normalizer = new HoverEventUuidNormalizer();
+        PluginSettings settings = PluginSettings.offline(
+                new HoverEventUuidNormalizer.NormalizationOptions(convertIntArrays, convertUuidObjects), useCache);
+        Logger logger = Logger.getLogger("ItemsAdderFix");
+        TrafficReplay replay = new TrafficReplay(new NormalizationPipeline(normalizer),
+                PluginState.build(settings, null, normalizer, logger, null));
+        try {
+            List<TrafficRecorder.Entry> entries = load(corpus);
+            for (int i = 1; i <= iterations; i++) {
+                Result result = replay.run(entries, paced);
+                System.out.printf(Locale.ROOT, "Run %d: %s%n", i, result.describe());
+            }
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("Replay failed: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static List<TrafficRecorder.Entry> load(Path corpus) throws IOException {
+        List<TrafficRecorder.Entry> entries = new ArrayList<>();
+        TrafficRecorder.read(corpus, entries::add);
+        return entries;
+    }
+
+    /**
+     * Replays consecutive entries that share a timestamp and player as one
+     * {@link ComponentBatch}, which is how the listener recorded the
+     * components of a packet or bundle, so every replayed batch goes through
+     * {@link NormalizationPipeline#normalizeBatch} with its audit pass and
+     * metrics.
+     */
+    Result run(List<TrafficRecorder.Entry> entries, boolean paced) {
+        long changed = 0;
+        long chars = 0;
+        long started = System.nanoTime();
+        long firstTimestamp = entries.isEmpty() ? 0 : entries.get(0).timestamp();
+        ComponentBatch batch = new ComponentBatch();
+
+        int index = 0;
+        while (index < entries.size()) {
+            TrafficRecorder.Entry first = entries.get(index);
+            if (paced) {
+                long due = started + TimeUnit.MILLISECONDS.toNanos(first.timestamp() - firstTimestamp);
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            batch.clear();
+            do {
+                TrafficRecorder.Entry entry = entries.get(index);
+                batch.add(entry.packetType(), entry.json(), null, batch.size());
+                chars += entry.json().length();
+                index++;
+            } while (index < entries.size() && samePacket(first, entries.get(index)));
+            changed += pipeline.normalizeBatch(batch, state, first.playerName());
+            if (batch.failure() != null) {
+                throw batch.failure();
+            }
+        }
+
+        return new Result(entries.size(), changed, chars, System.nanoTime() - started);
+    }
+
+    private static boolean samePacket(TrafficRecorder.Entry first, TrafficRecorder.Entry next) {
+        return next.timestamp() == first.timestamp() && Objects.equals(next.playerName(), first.playerName());
+    }
+
+    private static void usage(PrintStream out) {
+        out.println("Usage: java -cp ItemsAdderFix.jar com.ssilensio.itemsadderfix.TrafficReplay <recording>"
+                + " [--paced] [--iterations N] [--no-cache] [--no-int-array] [--no-uuid-object]");
+    }
+
+    private static void usageError() {
+        usage(System.err);
+        System.exit(2);
+    }
+
+    record Result(long components, long changed, long chars, long elapsedNanos) {
+        String describe() {
+            double seconds = Math.max(elapsedNanos, 1L) / 1_000_000_000.0;
+            return String.format(Locale.ROOT, "%,d components (%,d rewritten) in %.3f s, %,.0f components/s, %.2f us/component",
+                    components, changed, seconds, components / seconds,
+                    components == 0 ? 0.0 : elapsedNanos / 1000.0 / components);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.ssilensio.itemsadderfix.api;
+
+import java.util.List;
+
+/**
+ * Rewrites legacy {@code show_entity} UUIDs (int arrays and
+ * {@code {most,least}} objects) in chat component JSON into UUID strings,
+ * using the same rules, cache, audit log and conversion options as the
+ * ItemsAdderFix packet listener. Plugins that build components can fix them
+ * once when they are created instead of having every send repaired.
+ *
+ * <p>Obtain it from Bukkit's {@code ServicesManager}:</p>
+ *
+ * <pre>NormalizationService service = Bukkit.getServicesManager().load(NormalizationService.class);</pre>
+ *
+ * <p>All methods are thread-safe. Payloads that are not valid JSON, or need no
+ * change, are returned as the same instance.</p>
+ */
+public interface NormalizationService {
+    /**
+     * Returns the normalized form of one component JSON string.
+     */
+    String normalize(String json);
+
+    /**
+     * Normalizes every payload in order. The result has the same size as the
+     * input; {@code null} entries stay {@code null}.
+     */
+    List<String> normalizeAll(List<String> json);
+
+    /**
+     * Returns whether {@link #normalize(String)} would change the payload,
+     * without producing the rewritten JSON.
+     */
+    boolean needsNormalization(String json);
+}
@@ -19,6 +19,8 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -117,17 +119,33 @@ public final class HandledErrorLogger {
     }
 
     public boolean logNormalization(String original, String normalized) {
+        return logNormalizations(List.of(new Entry(original, normalized))) == 1;
+    }
+
+    /**
+     * Appends several conversions with a single read and rewrite of the XML
+     * file. Entries missing a field that is configured to be written are
+     * skipped. Returns the number of entries written.
+     */
+    public int logNormalizations(List<Entry> entries) {
         if (!initialized || handledErrorsFile == null) {
-            return false;
+            return 0;
         }
         if (!includeOriginal && !includeNormalized) {
-            return false;
+            return 0;
         }
-        if (includeOriginal && (original == null || original.isBlank())) {
-            return false;
+        List<Entry> accepted = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (includeOriginal && (entry.original() == null || entry.original().isBlank())) {
+                continue;
+            }
+            if (includeNormalized && (entry.normalized() == null || entry.normalized().isBlank())) {
+                continue;
+            }
+            accepted.add(entry);
         }
-        if (includeNormalized && (normalized == null || normalized.isBlank())) {
-            return false;
+        if (accepted.isEmpty()) {
+            return 0;
         }
 
         synchronized (lock) {
@@ -149,28 +167,31 @@ public final class HandledErrorLogger {
                     document.appendChild(root);
                 }
 
-                Element entry = document.createElement("handledError");
-                entry.setAttribute("timestamp", Instant.now().toString());
+                String timestamp = Instant.now().toString();
+                for (Entry normalization : accepted) {
+                    Element entry = document.createElement("handledError");
+                    entry.setAttribute("timestamp", timestamp);
 
-                if (includeOriginal) {
-                    Element originalElement = document.createElement("original");
-                    originalElement.appendChild(document.createCDATASection(original));
-                    entry.appendChild(originalElement);
-                }
+                    if (includeOriginal) {
+                        Element originalElement = document.createElement("original");
+                        originalElement.appendChild(document.createCDATASection(normalization.original()));
+                        entry.appendChild(originalElement);
+                    }
 
-                if (includeNormalized) {
-                    Element normalizedElement = document.createElement("normalized");
-                    normalizedElement.appendChild(document.createCDATASection(normalized));
-                    entry.appendChild(normalizedElement);
-                }
+                    if (includeNormalized) {
+                        Element normalizedElement = document.createElement("normalized");
+                        normalizedElement.appendChild(document.createCDATASection(normalization.normalized()));
+                        entry.appendChild(normalizedElement);
+                    }
 
-                root.appendChild(entry);
+                    root.appendChild(entry);
+                }
 
                 writeDocument(document);
-                return true;
+                return accepted.size();
             } catch (Exception ex) {
                 logger.log(Level.WARNING, "Unable to write handled error entry to " + fileName, ex);
-                return false;
+                return 0;
             }
         }
     }
@@ -226,4 +247,10 @@ public final class HandledErrorLogger {
             transformer.transform(source, result);
         }
     }
+
+    /**
+     * One converted payload: the original value and the UUID string it was
+     * replaced with.
+     */
+    public record Entry(String original, String normalized) {}
 }
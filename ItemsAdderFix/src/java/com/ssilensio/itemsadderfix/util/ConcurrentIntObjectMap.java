@@ -0,0 +1,183 @@
+package com.ssilensio.itemsadderfix.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Open-addressing map from primitive {@code int} keys to objects. Lookups are
+ * lock-free and never box the key, which makes the map suitable for per-player
+ * state that is read on packet threads and keyed by entity id. Mutations are
+ * serialized on an internal lock.
+ */
+public final class ConcurrentIntObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final Entry<?> REMOVED = new Entry<>(0, null);
+
+    private final Object lock = new Object();
+    private volatile AtomicReferenceArray<Entry<V>> table = new AtomicReferenceArray<>(MIN_CAPACITY);
+    private int size;
+    private int occupied;
+
+    public V get(int key) {
+        AtomicReferenceArray<Entry<V>> current = table;
+        int mask = current.length() - 1;
+        int index = mix(key) & mask;
+        while (true) {
+            Entry<V> entry = current.get(index);
+            if (entry == null) {
+                return null;
+            }
+            if (entry != REMOVED && entry.key == key) {
+                return entry.value;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        synchronized (lock) {
+            V previous = removeLocked(key);
+            insertLocked(key, value);
+            return previous;
+        }
+    }
+
+    public V computeIfAbsent(int key, IntFunction<? extends V> factory) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (lock) {
+            existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+            V created = factory.apply(key);
+            if (created != null) {
+                insertLocked(key, created);
+            }
+            return created;
+        }
+    }
+
+    public V remove(int key) {
+        synchronized (lock) {
+            return removeLocked(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            table = new AtomicReferenceArray<>(MIN_CAPACITY);
+            size = 0;
+            occupied = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    public void forEachValue(Consumer<? super V> action) {
+        AtomicReferenceArray<Entry<V>> current = table;
+        for (int i = 0; i < current.length(); i++) {
+            Entry<V> entry = current.get(i);
+            if (entry != null && entry != REMOVED) {
+                action.accept(entry.value);
+            }
+        }
+    }
+
+    private void insertLocked(int key, V value) {
+        AtomicReferenceArray<Entry<V>> current = table;
+        if ((occupied + 1) * 2 > current.length()) {
+            current = rehash(capacityFor(size + 1));
+        }
+        int mask = current.length() - 1;
+        int index = mix(key) & mask;
+        while (true) {
+            Entry<V> entry = current.get(index);
+            if (entry == null) {
+                occupied++;
+                break;
+            }
+            if (entry == REMOVED) {
+                break;
+            }
+            index = (index + 1) & mask;
+        }
+        current.set(index, new Entry<>(key, value));
+        size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V removeLocked(int key) {
+        AtomicReferenceArray<Entry<V>> current = table;
+        int mask = current.length() - 1;
+        int index = mix(key) & mask;
+        while (true) {
+            Entry<V> entry = current.get(index);
+            if (entry == null) {
+                return null;
+            }
+            if (entry != REMOVED && entry.key == key) {
+                current.set(index, (Entry<V>) REMOVED);
+                size--;
+                if (current.length() > MIN_CAPACITY && size * 8 < current.length()) {
+                    rehash(capacityFor(size));
+                }
+                return entry.value;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private AtomicReferenceArray<Entry<V>> rehash(int capacity) {
+        AtomicReferenceArray<Entry<V>> previous = table;
+        AtomicReferenceArray<Entry<V>> next = new AtomicReferenceArray<>(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < previous.length(); i++) {
+            Entry<V> entry = previous.get(i);
+            if (entry == null || entry == REMOVED) {
+                continue;
+            }
+            int index = mix(entry.key) & mask;
+            while (next.get(index) != null) {
+                index = (index + 1) & mask;
+            }
+            next.set(index, entry);
+        }
+        occupied = size;
+        table = next;
+        return next;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2 + 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry<V> {
+        private final int key;
+        private final V value;
+
+        private Entry(int key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.ssilensio.itemsadderfix.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Open-addressing set of primitive {@code long} keys. Lookups are lock-free and
+ * may run on any thread; mutations are serialized on an internal lock and
+ * publish a fresh table whenever the set has to grow or be compacted.
+ * Two values ({@link Long#MIN_VALUE} and {@code Long.MIN_VALUE + 1}) are
+ * reserved as slot markers and cannot be stored.
+ */
+public final class ConcurrentLongSet {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long REMOVED = Long.MIN_VALUE + 1;
+    private static final int MIN_CAPACITY = 16;
+
+    private final Object lock = new Object();
+    private volatile AtomicLongArray table;
+    private int size;
+    private int occupied;
+
+    public ConcurrentLongSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public ConcurrentLongSet(int expectedSize) {
+        this.table = newTable(capacityFor(expectedSize));
+    }
+
+    public boolean contains(long key) {
+        AtomicLongArray current = table;
+        int mask = current.length() - 1;
+        int index = mix(key) & mask;
+        while (true) {
+            long value = current.get(index);
+            if (value == key) {
+                return true;
+            }
+            if (value == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean add(long key) {
+        checkKey(key);
+        synchronized (lock) {
+            AtomicLongArray current = table;
+            int mask = current.length() - 1;
+            int index = mix(key) & mask;
+            int reusable = -1;
+            while (true) {
+                long value = current.get(index);
+                if (value == key) {
+                    return false;
+                }
+                if (value == EMPTY) {
+                    break;
+                }
+                if (value == REMOVED && reusable < 0) {
+                    reusable = index;
+                }
+                index = (index + 1) & mask;
+            }
+
+            if (reusable >= 0) {
+                current.set(reusable, key);
+                size++;
+                return true;
+            }
+
+            if ((occupied + 1) * 2 > current.length()) {
+                current = rehash(capacityFor(size + 1));
+                index = mix(key) & (current.length() - 1);
+                while (current.get(index) != EMPTY) {
+                    index = (index + 1) & (current.length() - 1);
+                }
+            }
+            current.set(index, key);
+            size++;
+            occupied++;
+            return true;
+        }
+    }
+
+    public boolean remove(long key) {
+        checkKey(key);
+        synchronized (lock) {
+            AtomicLongArray current = table;
+            int mask = current.length() - 1;
+            int index = mix(key) & mask;
+            while (true) {
+                long value = current.get(index);
+                if (value == EMPTY) {
+                    return false;
+                }
+                if (value == key) {
+                    current.set(index, REMOVED);
+                    size--;
+                    if (current.length() > MIN_CAPACITY && size * 8 < current.length()) {
+                        rehash(capacityFor(size));
+                    }
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            table = newTable(MIN_CAPACITY);
+            size = 0;
+            occupied = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    private AtomicLongArray rehash(int capacity) {
+        AtomicLongArray previous = table;
+        AtomicLongArray next = newTable(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < previous.length(); i++) {
+            long value = previous.get(i);
+            if (value == EMPTY || value == REMOVED) {
+                continue;
+            }
+            int index = mix(value) & mask;
+            while (next.get(index) != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            next.set(index, value);
+        }
+        occupied = size;
+        table = next;
+        return next;
+    }
+
+    private static AtomicLongArray newTable(int capacity) {
+        AtomicLongArray array = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            array.set(i, EMPTY);
+        }
+        return array;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2 + 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY || key == REMOVED) {
+            throw new IllegalArgumentException("Reserved key " + key);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.ssilensio.itemsadderfix.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded cache of canonical UUID strings keyed by the two {@code long} halves
+ * of the UUID. Lookups are lock-free and allocation-free on a hit. The table
+ * never grows: an insert probes a short window and, when that window is full,
+ * replaces the entry in the home slot, so the cache keeps whichever UUIDs are
+ * currently in circulation.
+ */
+public final class UuidStringCache {
+    private static final int MAX_PROBES = 8;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final AtomicReferenceArray<Entry> table;
+    private final int mask;
+
+    public UuidStringCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(MAX_PROBES, capacity) * 2 - 1);
+        this.table = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the canonical {@code 8-4-4-4-12} form of the UUID with the given
+     * halves, formatting and caching it on a miss.
+     */
+    public String get(long mostSignificantBits, long leastSignificantBits) {
+        int home = index(mostSignificantBits, leastSignificantBits);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (home + probe) & mask;
+            Entry entry = table.get(slot);
+            if (entry == null) {
+                String value = format(mostSignificantBits, leastSignificantBits);
+                if (table.compareAndSet(slot, null, new Entry(mostSignificantBits, leastSignificantBits, value))) {
+                    return value;
+                }
+                entry = table.get(slot);
+            }
+            if (entry.most == mostSignificantBits && entry.least == leastSignificantBits) {
+                return entry.value;
+            }
+        }
+
+        String value = format(mostSignificantBits, leastSignificantBits);
+        table.set(home, new Entry(mostSignificantBits, leastSignificantBits, value));
+        return value;
+    }
+
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < table.length(); i++) {
+            if (table.get(i) != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public int capacity() {
+        return table.length();
+    }
+
+    /**
+     * Formats a UUID the same way as {@link java.util.UUID#toString()} without
+     * creating the {@code UUID} instance.
+     */
+    public static String format(long mostSignificantBits, long leastSignificantBits) {
+        char[] chars = new char[36];
+        writeHex(chars, 0, mostSignificantBits >>> 32, 8);
+        chars[8] = '-';
+        writeHex(chars, 9, mostSignificantBits >>> 16, 4);
+        chars[13] = '-';
+        writeHex(chars, 14, mostSignificantBits, 4);
+        chars[18] = '-';
+        writeHex(chars, 19, leastSignificantBits >>> 48, 4);
+        chars[23] = '-';
+        writeHex(chars, 24, leastSignificantBits, 12);
+        return new String(chars);
+    }
+
+    private static void writeHex(char[] chars, int offset, long value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = HEX[(int) value & 0xF];
+            value >>>= 4;
+        }
+    }
+
+    private int index(long most, long least) {
+        long hash = (most ^ Long.rotateLeft(least, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private record Entry(long most, long least, String value) {}
+}
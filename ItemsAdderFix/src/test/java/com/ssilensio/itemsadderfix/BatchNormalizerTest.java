@@ -0,0 +1,78 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchNormalizerTest {
+    private static final String LEGACY = "{\"text\":\"Zombie\",\"hoverEvent\":{\"action\":\"show_entity\","
+            + "\"contents\":{\"type\":\"minecraft:zombie\",\"id\":[1,2,3,4]}}}";
+    private static final String FIXED = "{\"text\":\"Zombie\",\"hoverEvent\":{\"action\":\"show_entity\","
+            + "\"contents\":{\"type\":\"minecraft:zombie\",\"id\":\"00000001-0000-0002-0000-000300000004\"}}}";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void rewritesLegacyLinesAndKeepsOthers() throws IOException {
+        Path input = folder.resolve("chat.ndjson");
+        Path output = folder.resolve("chat.out");
+        Files.writeString(input, LEGACY + "\n{\"text\":\"hi\"}\r\n\nnot json\n" + LEGACY, StandardCharsets.UTF_8);
+
+        BatchNormalizer.Summary summary = normalizer().run(input, output);
+
+        assertEquals(FIXED + "\n{\"text\":\"hi\"}\r\n\nnot json\n" + FIXED, Files.readString(output, StandardCharsets.UTF_8));
+        assertEquals(5, summary.lines());
+        assertEquals(2, summary.changedLines());
+        assertEquals(2, summary.fixes());
+    }
+
+    @Test
+    void keepsLineOrderAcrossChunks() throws IOException {
+        Path input = folder.resolve("large.ndjson");
+        Path output = folder.resolve("large.out");
+        List<String> lines = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        String padding = "x".repeat(200);
+        for (int i = 0; i < 60_000; i++) {
+            if (i % 7 == 0) {
+                lines.add(LEGACY);
+                expected.add(FIXED);
+            } else {
+                String line = "{\"text\":\"" + i + padding + "\"}";
+                lines.add(line);
+                expected.add(line);
+            }
+        }
+        Files.write(input, lines, StandardCharsets.UTF_8);
+
+        BatchNormalizer.Summary summary = normalizer().run(input, output);
+
+        assertEquals(expected, Files.readAllLines(output, StandardCharsets.UTF_8));
+        assertEquals(60_000, summary.lines());
+        assertEquals((60_000 + 6) / 7, summary.fixes());
+    }
+
+    @Test
+    void refusesToOverwriteItsInput() throws IOException {
+        Path input = folder.resolve("chat.ndjson");
+        Files.writeString(input, LEGACY, StandardCharsets.UTF_8);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> normalizer().run(input, folder.resolve(".").resolve("chat.ndjson")));
+        assertEquals(LEGACY, Files.readString(input, StandardCharsets.UTF_8));
+    }
+
+    private static BatchNormalizer normalizer() {
+        return new BatchNormalizer(new HoverEventUuidNormalizer.NormalizationOptions(true, true), 4);
+    }
+}
@@ -108,4 +108,153 @@ class BlockDigSanitizerTest {
         assertFalse(result.shouldCancel());
         assertNull(result.replacement());
     }
+
+    @Test
+    void primitiveEvaluateCancelsUnloadedChunks() {
+        long decision = sanitizer.evaluate(
+                EnumWrappers.PlayerDigType.START_DESTROY_BLOCK,
+                32, 70, -48,
+                (chunkX, chunkZ) -> chunkX != 2 || chunkZ != -3,
+                null
+        );
+        assertTrue(BlockDigSanitizer.isCancel(decision));
+        assertFalse(BlockDigSanitizer.isReplacement(decision));
+        assertEquals(BlockDigSanitizer.REASON_UNLOADED_CHUNK, BlockDigSanitizer.cancelReason(decision));
+    }
+
+    @Test
+    void primitiveEvaluateAllowsLoadedChunks() {
+        long decision = sanitizer.evaluate(
+                EnumWrappers.PlayerDigType.START_DESTROY_BLOCK,
+                128, 64, 128,
+                (chunkX, chunkZ) -> true,
+                () -> BlockPositions.pack(1, 2, 3)
+        );
+        assertEquals(BlockDigSanitizer.ALLOW, decision);
+        assertFalse(BlockDigSanitizer.isCancel(decision));
+        assertEquals(0, BlockDigSanitizer.cancelReason(decision));
+    }
+
+    @Test
+    void primitiveEvaluateReturnsPackedReplacement() {
+        long decision = sanitizer.evaluate(
+                EnumWrappers.PlayerDigType.RELEASE_USE_ITEM,
+                0, 0, 0,
+                null,
+                () -> BlockPositions.pack(-12, -64, 5)
+        );
+        assertTrue(BlockDigSanitizer.isReplacement(decision));
+        assertEquals(-12, BlockPositions.x(decision));
+        assertEquals(-64, BlockPositions.y(decision));
+        assertEquals(5, BlockPositions.z(decision));
+    }
+
+    @Test
+    void primitiveEvaluateChecksReplacementChunk() {
+        long decision = sanitizer.evaluate(
+                EnumWrappers.PlayerDigType.START_DESTROY_BLOCK,
+                0, 0, 0,
+                (chunkX, chunkZ) -> chunkX == 0 && chunkZ == 0,
+                () -> BlockPositions.pack(100, 64, 100)
+        );
+        assertTrue(BlockDigSanitizer.isCancel(decision));
+
+        decision = sanitizer.evaluate(
+                EnumWrappers.PlayerDigType.START_DESTROY_BLOCK,
+                0, 0, 0,
+                (chunkX, chunkZ) -> chunkX == 0 && chunkZ == 0,
+                () -> BlockPositions.NO_POSITION
+        );
+        assertEquals(BlockDigSanitizer.ALLOW, decision);
+    }
+
+    @Test
+    void replacementsNeverCollideWithSentinels() {
+        long[] positions = {
+                BlockPositions.pack(0, -2048, 0),
+                BlockPositions.pack(0, -2047, 1),
+                BlockPositions.pack(0, 0, 0),
+                BlockPositions.pack(-1, -1, -1)
+        };
+        for (long position : positions) {
+            assertTrue(BlockDigSanitizer.isReplacement(position));
+        }
+        assertFalse(BlockDigSanitizer.isReplacement(BlockDigSanitizer.ALLOW));
+        assertFalse(BlockDigSanitizer.isReplacement(BlockDigSanitizer.cancel(BlockDigSanitizer.REASON_UNLOADED_CHUNK)));
+    }
+
+    @Test
+    void cancelsDigsBeyondReach() {
+        BlockDigSanitizer limited = new BlockDigSanitizer(6);
+        BlockDigSanitizer.PositionSource player = () -> BlockPositions.pack(100, 64, 100);
+
+        long near = limited.evaluate(EnumWrappers.PlayerDigType.START_DESTROY_BLOCK, 104, 66, 98, null, player);
+        assertEquals(BlockDigSanitizer.ALLOW, near);
+
+        long far = limited.evaluate(EnumWrappers.PlayerDigType.START_DESTROY_BLOCK, 140, 64, 100, null, player);
+        assertEquals(BlockDigSanitizer.REASON_OUT_OF_REACH, BlockDigSanitizer.cancelReason(far));
+
+        long farStop = limited.evaluate(EnumWrappers.PlayerDigType.STOP_DESTROY_BLOCK, 100, 64, -400, null, player);
+        assertEquals(BlockDigSanitizer.REASON_OUT_OF_REACH, BlockDigSanitizer.cancelReason(farStop));
+
+        long unknownPlayer = limited.evaluate(
+                EnumWrappers.PlayerDigType.START_DESTROY_BLOCK, 140, 64, 100, null, () -> BlockPositions.NO_POSITION);
+        assertEquals(BlockDigSanitizer.ALLOW, unknownPlayer);
+    }
+
+    @Test
+    void cancelsDigsOutsideWorldHeight() {
+        BlockDigSanitizer.PositionSource player = new BlockDigSanitizer.PositionSource() {
+            @Override
+            public long currentPackedPosition() {
+                return BlockPositions.pack(0, 64, 0);
+            }
+
+            @Override
+            public int minBuildHeight() {
+                return -64;
+            }
+
+            @Override
+            public int maxBuildHeight() {
+                return 320;
+            }
+        };
+
+        assertEquals(BlockDigSanitizer.ALLOW,
+                sanitizer.evaluate(EnumWrappers.PlayerDigType.ABORT_DESTROY_BLOCK, 1, -64, 1, null, player));
+        assertEquals(BlockDigSanitizer.REASON_OUTSIDE_WORLD, BlockDigSanitizer.cancelReason(
+                sanitizer.evaluate(EnumWrappers.PlayerDigType.ABORT_DESTROY_BLOCK, 1, -65, 1, null, player)));
+        assertEquals(BlockDigSanitizer.REASON_OUTSIDE_WORLD, BlockDigSanitizer.cancelReason(
+                sanitizer.evaluate(EnumWrappers.PlayerDigType.START_DESTROY_BLOCK, 1, 320, 1, (x, z) -> true, player)));
+    }
+
+    @Test
+    void skipsTargetValidationForReplacedPlaceholders() {
+        BlockDigSanitizer limited = new BlockDigSanitizer(4);
+        long decision = limited.evaluate(
+                EnumWrappers.PlayerDigType.START_DESTROY_BLOCK,
+                0, 0, 0,
+                (chunkX, chunkZ) -> true,
+                () -> BlockPositions.pack(5000, 70, 5000)
+        );
+        assertTrue(BlockDigSanitizer.isReplacement(decision));
+        assertEquals(5000, BlockPositions.x(decision));
+    }
+
+    @Test
+    void checksUseItemOnTargetAndFaceChunks() {
+        BlockDigSanitizer.ChunkLoadChecker onlyOrigin = (chunkX, chunkZ) -> chunkX == 0 && chunkZ == 0;
+
+        assertEquals(BlockDigSanitizer.ALLOW,
+                sanitizer.evaluateUseItemOn(8, 64, 8, EnumWrappers.Direction.EAST, onlyOrigin));
+        assertEquals(BlockDigSanitizer.ALLOW,
+                sanitizer.evaluateUseItemOn(15, 64, 8, EnumWrappers.Direction.UP, onlyOrigin));
+        assertTrue(BlockDigSanitizer.isCancel(
+                sanitizer.evaluateUseItemOn(15, 64, 8, EnumWrappers.Direction.EAST, onlyOrigin)));
+        assertTrue(BlockDigSanitizer.isCancel(
+                sanitizer.evaluateUseItemOn(8, 64, 0, EnumWrappers.Direction.NORTH, onlyOrigin)));
+        assertTrue(BlockDigSanitizer.isCancel(
+                sanitizer.evaluateUseItemOn(16, 64, 8, EnumWrappers.Direction.WEST, onlyOrigin)));
+    }
 }
@@ -0,0 +1,79 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CaptureRingTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void keepsNewestEntriesOldestFirst() {
+        CaptureRing ring = new CaptureRing(4, 1, true, true);
+        for (int i = 0; i < 10; i++) {
+            ring.offer("SYSTEM_CHAT", "Steve", "before" + i, "before" + i);
+        }
+
+        List<CaptureRing.Entry> entries = ring.snapshot();
+        assertEquals(4, entries.size());
+        assertEquals("before6", entries.get(0).before());
+        assertEquals("before9", entries.get(3).before());
+        assertEquals(10, ring.captured());
+    }
+
+    @Test
+    void capturesFixesEvenWhenNotSampled() {
+        CaptureRing ring = new CaptureRing(8, Integer.MAX_VALUE, true, true);
+        ring.offer("SYSTEM_CHAT", "Steve", "{\"a\":1}", "{\"a\":1}");
+        ring.offer("SYSTEM_CHAT", "Steve", "{\"id\":[1,2,3,4]}", "{\"id\":\"uuid\"}");
+
+        List<CaptureRing.Entry> entries = ring.snapshot();
+        assertTrue(entries.size() >= 1);
+        assertEquals("{\"id\":\"uuid\"}", entries.get(entries.size() - 1).after());
+    }
+
+    @Test
+    void freezesOnError() {
+        CaptureRing ring = new CaptureRing(8, 1, true, true);
+        ring.offer("SYSTEM_CHAT", "Steve", "a", "a");
+        ring.recordError("SYSTEM_CHAT", "Alex", "broken", new IllegalStateException("boom"));
+        ring.offer("SYSTEM_CHAT", "Steve", "b", "b");
+
+        assertTrue(ring.isFrozen());
+        List<CaptureRing.Entry> entries = ring.snapshot();
+        assertEquals(2, entries.size());
+        assertNull(entries.get(1).after());
+        assertTrue(entries.get(1).error().contains("boom"));
+
+        ring.resume();
+        ring.offer("SYSTEM_CHAT", "Steve", "c", "c");
+        assertFalse(ring.isFrozen());
+        assertEquals(3, ring.snapshot().size());
+    }
+
+    @Test
+    void dumpsOneJsonObjectPerLine() throws IOException {
+        CaptureRing ring = new CaptureRing(8, 1, true, false);
+        ring.offer("SYSTEM_CHAT", "Steve", "{\"text\":\"a\"}", "{\"text\":\"a\"}");
+        ring.offer("BOSS", null, "{\"text\":\"b\"}", "{\"text\":\"c\"}");
+
+        Path file = folder.resolve("captures").resolve("dump.ndjson");
+        assertEquals(2, ring.dump(file));
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("\"packet\":\"BOSS\""));
+        assertTrue(lines.get(1).contains("\"changed\":true"));
+    }
+}
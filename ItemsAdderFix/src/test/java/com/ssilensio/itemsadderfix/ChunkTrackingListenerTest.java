@@ -0,0 +1,75 @@
+package com.ssilensio.itemsadderfix;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkTrackingListenerTest {
+    private final LoadedChunkIndex index = new LoadedChunkIndex();
+    private final ChunkTrackingListener listener = new ChunkTrackingListener(index, Logger.getLogger("ChunkTrackingListenerTest"));
+
+    @Test
+    void seedsLoadedChunksAndHeights() {
+        World world = world(() -> new Chunk[]{chunk(3, -4)});
+
+        assertTrue(listener.seed(List.of(world)));
+
+        LoadedChunkIndex.WorldChunks chunks = index.world(world.getUID());
+        assertTrue(chunks.isChunkLoaded(3, -4));
+        assertFalse(chunks.isChunkLoaded(0, 0));
+        assertEquals(-64, chunks.minHeight());
+        assertEquals(320, chunks.maxHeight());
+    }
+
+    @Test
+    void keepsOnlyHeightsWhenChunksCannotBeListed() {
+        World world = world(() -> {
+            throw new UnsupportedOperationException("Must be called on the owning region");
+        });
+        index.track(world.getUID());
+        index.markLoaded(world.getUID(), 9, 9);
+
+        assertFalse(listener.seed(List.of(world)));
+        index.markLoaded(world.getUID(), 0, 0);
+
+        PlayerPositionSnapshot snapshot = new PlayerPositionSnapshot();
+        snapshot.update(world.getUID(), 0, 64, 0);
+        PlayerDigContext context = new PlayerDigContext(snapshot, index).bind();
+        assertTrue(context.isChunkLoaded(5, 5));
+        assertEquals(-64, context.minBuildHeight());
+        assertEquals(320, context.maxBuildHeight());
+        assertEquals(0, index.world(world.getUID()).size());
+    }
+
+    private static World world(Supplier<Chunk[]> loadedChunks) {
+        UUID id = UUID.randomUUID();
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getUID" -> id;
+                    case "getMinHeight" -> -64;
+                    case "getMaxHeight" -> 320;
+                    case "getName" -> "world";
+                    case "getLoadedChunks" -> loadedChunks.get();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Chunk chunk(int x, int z) {
+        return (Chunk) Proxy.newProxyInstance(Chunk.class.getClassLoader(), new Class<?>[]{Chunk.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getX" -> x;
+                    case "getZ" -> z;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,179 @@
+package com.ssilensio.itemsadderfix;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates structurally valid chat component JSON for fuzzing the hover
+ * event normalizer. Shapes are biased towards the expensive parts of the
+ * format: nested {@code extra} and {@code with} arrays, hover events inside
+ * hover events and {@code show_entity} payloads that are arrays.
+ */
+final class ComponentJsonGenerator {
+    private static final String[] ENTITY_TYPES = {"minecraft:player", "minecraft:zombie", "minecraft:villager", "minecraft:armor_stand"};
+    private static final String[] COLORS = {"red", "gold", "gray", "#55ffaa"};
+
+    private final Random random;
+    private final boolean legacyIds;
+    private final int maxDepth;
+    private final int maxWidth;
+    private final int maxNodes;
+    private int legacyCount;
+    private int nodes;
+
+    ComponentJsonGenerator(long seed, boolean legacyIds, int maxDepth, int maxWidth, int maxNodes) {
+        this.random = new Random(seed);
+        this.legacyIds = legacyIds;
+        this.maxDepth = maxDepth;
+        this.maxWidth = maxWidth;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Returns the next component. {@code maxNodes} caps how many nested
+     * components one result may contain so wide and deep settings stay
+     * bounded.
+     */
+    Generated next() {
+        legacyCount = 0;
+        nodes = 0;
+        JsonElement component = component(0);
+        return new Generated(component.toString(), legacyCount);
+    }
+
+    private JsonElement component(int depth) {
+        if (depth >= maxDepth || ++nodes >= maxNodes || random.nextInt(6) == 0) {
+            return random.nextBoolean() ? new JsonPrimitive(text()) : textObject();
+        }
+
+        JsonObject component = random.nextInt(4) == 0 ? translatable(depth) : textObject();
+        if (random.nextInt(3) == 0) {
+            component.add("hoverEvent", hoverEvent(depth + 1));
+        }
+        if (random.nextBoolean()) {
+            component.add("extra", children(depth + 1));
+        }
+        return component;
+    }
+
+    private JsonObject textObject() {
+        JsonObject object = new JsonObject();
+        object.addProperty("text", text());
+        if (random.nextBoolean()) {
+            object.addProperty("color", COLORS[random.nextInt(COLORS.length)]);
+        }
+        if (random.nextInt(4) == 0) {
+            object.addProperty("bold", random.nextBoolean());
+        }
+        return object;
+    }
+
+    private JsonObject translatable(int depth) {
+        JsonObject object = new JsonObject();
+        object.addProperty("translate", "chat.type.text");
+        object.add("with", children(depth + 1));
+        return object;
+    }
+
+    private JsonArray children(int depth) {
+        JsonArray array = new JsonArray();
+        int count = 1 + random.nextInt(Math.max(1, maxWidth));
+        for (int i = 0; i < count; i++) {
+            array.add(component(depth));
+        }
+        return array;
+    }
+
+    private JsonObject hoverEvent(int depth) {
+        JsonObject hoverEvent = new JsonObject();
+        switch (random.nextInt(4)) {
+            case 0 -> {
+                hoverEvent.addProperty("action", "show_text");
+                hoverEvent.add("contents", component(depth));
+            }
+            case 1 -> {
+                hoverEvent.addProperty("action", "show_item");
+                JsonObject item = new JsonObject();
+                item.addProperty("id", "minecraft:diamond_sword");
+                item.addProperty("count", 1);
+                hoverEvent.add("contents", item);
+            }
+            default -> {
+                hoverEvent.addProperty("action", "show_entity");
+                if (random.nextBoolean()) {
+                    hoverEvent.add(random.nextBoolean() ? "contents" : "value", tooltip(depth));
+                } else {
+                    JsonArray array = new JsonArray();
+                    int count = 1 + random.nextInt(Math.max(1, maxWidth));
+                    for (int i = 0; i < count; i++) {
+                        array.add(random.nextBoolean() ? tooltip(depth) : component(depth));
+                    }
+                    hoverEvent.add("contents", array);
+                }
+            }
+        }
+        return hoverEvent;
+    }
+
+    private JsonObject tooltip(int depth) {
+        JsonObject tooltip = new JsonObject();
+        tooltip.addProperty("type", ENTITY_TYPES[random.nextInt(ENTITY_TYPES.length)]);
+        tooltip.add("id", entityId());
+        if (random.nextBoolean()) {
+            tooltip.add("name", component(depth + 1));
+        }
+        return tooltip;
+    }
+
+    private JsonElement entityId() {
+        UUID uuid = new UUID(random.nextLong(), random.nextLong());
+        if (!legacyIds || random.nextInt(3) == 0) {
+            return new JsonPrimitive(uuid.toString());
+        }
+        legacyCount++;
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        switch (random.nextInt(3)) {
+            case 0 -> {
+                JsonArray ints = new JsonArray();
+                ints.add((int) (most >> 32));
+                ints.add((int) most);
+                ints.add((int) (least >> 32));
+                ints.add((int) least);
+                return ints;
+            }
+            case 1 -> {
+                JsonArray bytes = new JsonArray();
+                for (int i = 7; i >= 0; i--) {
+                    bytes.add((byte) (most >>> (i * 8)));
+                }
+                for (int i = 7; i >= 0; i--) {
+                    bytes.add((byte) (least >>> (i * 8)));
+                }
+                return bytes;
+            }
+            default -> {
+                JsonObject object = new JsonObject();
+                object.addProperty("most", most);
+                object.addProperty("least", least);
+                return object;
+            }
+        }
+    }
+
+    private String text() {
+        int length = random.nextInt(12);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+
+    record Generated(String json, int legacyCount) {}
+}
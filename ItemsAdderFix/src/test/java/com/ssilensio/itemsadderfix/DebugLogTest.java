@@ -0,0 +1,99 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DebugLogTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<String> lines = new ArrayList<>();
+    private final Logger logger = capturingLogger();
+
+    @Test
+    void rendersMessagesOnlyWhenDrained() {
+        DebugLog debugLog = new DebugLog(logger, new PluginSettings.DebugLogSettings(5, 16, 10), 0);
+        int[] rendered = new int[1];
+        debugLog.log(DebugLog.Category.DIG, "Steve", "BLOCK_DIG", () -> "dig " + ++rendered[0]);
+
+        assertEquals(0, rendered[0]);
+        assertEquals(1, debugLog.drain(SECOND));
+        assertEquals(List.of("dig 1"), lines);
+    }
+
+    @Test
+    void summarisesMessagesOverTheLimit() {
+        DebugLog debugLog = new DebugLog(logger, new PluginSettings.DebugLogSettings(2, 16, 10), 0);
+        for (int i = 0; i < 5; i++) {
+            debugLog.log(DebugLog.Category.NORMALIZATION, "Steve", "SYSTEM_CHAT", () -> "fix");
+        }
+        debugLog.log(DebugLog.Category.DIG, "Steve", "BLOCK_DIG", () -> "dig");
+
+        assertEquals(3, debugLog.drain(SECOND));
+        debugLog.log(DebugLog.Category.NORMALIZATION, "Steve", "SYSTEM_CHAT", () -> "next window");
+        assertEquals(1, debugLog.drain(10 * SECOND));
+
+        assertEquals(List.of("fix", "fix", "dig", "next window",
+                "3 similar hover event normalization debug messages in the last 10 s were not shown."), lines);
+    }
+
+    @Test
+    void countsMessagesThatDoNotFitTheQueue() {
+        DebugLog debugLog = new DebugLog(logger, new PluginSettings.DebugLogSettings(100, 16, 1), 0);
+        for (int i = 0; i < 20; i++) {
+            debugLog.log(DebugLog.Category.DIG, null, null, () -> "dig");
+        }
+
+        assertEquals(16, debugLog.drain(2 * SECOND));
+        assertEquals("4 debug messages in the last 2 s were dropped because the queue was full.", lines.get(lines.size() - 1));
+    }
+
+    @Test
+    void filtersByPlayerAndPacketType() {
+        DebugLog debugLog = new DebugLog(logger, new PluginSettings.DebugLogSettings(5, 16, 10), 0);
+        debugLog.addPlayer("Steve");
+        assertTrue(debugLog.accepts("steve", "SYSTEM_CHAT"));
+        assertFalse(debugLog.accepts("Alex", "SYSTEM_CHAT"));
+        assertFalse(debugLog.accepts(null, "SYSTEM_CHAT"));
+
+        debugLog.addPacketType("block_dig");
+        assertTrue(debugLog.accepts("Steve", "BLOCK_DIG"));
+        assertFalse(debugLog.accepts("Steve", "SYSTEM_CHAT"));
+
+        DebugLog replacement = new DebugLog(logger, new PluginSettings.DebugLogSettings(10, 16, 10), 0);
+        replacement.copyFilters(debugLog);
+        assertFalse(replacement.accepts("Alex", "BLOCK_DIG"));
+
+        debugLog.clearFilters();
+        assertTrue(debugLog.accepts(null, null));
+    }
+
+    private Logger capturingLogger() {
+        Logger capturing = Logger.getAnonymousLogger();
+        capturing.setUseParentHandlers(false);
+        capturing.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                lines.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return capturing;
+    }
+}
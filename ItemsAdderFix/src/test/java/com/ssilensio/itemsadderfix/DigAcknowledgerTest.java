@@ -0,0 +1,55 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DigAcknowledgerTest {
+    private final List<Runnable> nextTick = new ArrayList<>();
+    private final List<Integer> sent = new ArrayList<>();
+    private final DigAcknowledger acknowledger =
+            new DigAcknowledger((player, task) -> nextTick.add(task), (player, sequence) -> sent.add(sequence));
+
+    @Test
+    void coalescesOneTickIntoTheHighestSequence() {
+        acknowledger.acknowledge(7, null, 12);
+        acknowledger.acknowledge(7, null, 15);
+        acknowledger.acknowledge(7, null, 14);
+
+        assertEquals(1, nextTick.size());
+        runTick();
+        assertEquals(List.of(15), sent);
+    }
+
+    @Test
+    void schedulesAgainAfterAFlush() {
+        acknowledger.acknowledge(7, null, 3);
+        runTick();
+        acknowledger.acknowledge(7, null, 4);
+
+        assertEquals(1, nextTick.size());
+        runTick();
+        assertEquals(List.of(3, 4), sent);
+    }
+
+    @Test
+    void keepsPlayersApart() {
+        acknowledger.acknowledge(7, null, 3);
+        acknowledger.acknowledge(8, null, 9);
+        acknowledger.acknowledge(7, null, -1);
+
+        assertEquals(2, nextTick.size());
+        assertEquals(2, acknowledger.pending());
+        runTick();
+        assertEquals(List.of(3, 9), sent);
+    }
+
+    private void runTick() {
+        List<Runnable> tasks = new ArrayList<>(nextTick);
+        nextTick.clear();
+        tasks.forEach(Runnable::run);
+    }
+}
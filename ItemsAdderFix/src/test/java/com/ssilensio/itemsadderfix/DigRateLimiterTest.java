@@ -0,0 +1,68 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DigRateLimiterTest {
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    @Test
+    void allowsBurstThenDrops() {
+        DigRateLimiter limiter = new DigRateLimiter(10, 5, clock::get);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(1, "Steve"));
+        }
+        assertFalse(limiter.tryAcquire(1, "Steve"));
+        assertEquals(1, limiter.droppedTotal());
+    }
+
+    @Test
+    void refillsAtConfiguredRate() {
+        DigRateLimiter limiter = new DigRateLimiter(10, 2, clock::get);
+        assertTrue(limiter.tryAcquire(1, "Steve"));
+        assertTrue(limiter.tryAcquire(1, "Steve"));
+        assertFalse(limiter.tryAcquire(1, "Steve"));
+
+        clock.addAndGet(99);
+        assertFalse(limiter.tryAcquire(1, "Steve"));
+        clock.addAndGet(1);
+        assertTrue(limiter.tryAcquire(1, "Steve"));
+        assertFalse(limiter.tryAcquire(1, "Steve"));
+
+        clock.addAndGet(10_000);
+        assertTrue(limiter.tryAcquire(1, "Steve"));
+        assertTrue(limiter.tryAcquire(1, "Steve"));
+        assertFalse(limiter.tryAcquire(1, "Steve"));
+    }
+
+    @Test
+    void keepsBucketsPerPlayer() {
+        DigRateLimiter limiter = new DigRateLimiter(1, 1, clock::get);
+        assertTrue(limiter.tryAcquire(1, "Steve"));
+        assertFalse(limiter.tryAcquire(1, "Steve"));
+        assertTrue(limiter.tryAcquire(2, "Alex"));
+    }
+
+    @Test
+    void drainsOffenderSummaries() {
+        DigRateLimiter limiter = new DigRateLimiter(1, 1, clock::get);
+        limiter.tryAcquire(1, "Steve");
+        limiter.tryAcquire(1, "Steve");
+        limiter.tryAcquire(2, "Alex");
+        limiter.tryAcquire(2, "Alex");
+        limiter.tryAcquire(2, "Alex");
+
+        List<DigRateLimiter.Offender> offenders = limiter.drainOffenders();
+        assertEquals(2, offenders.size());
+        assertEquals(new DigRateLimiter.Offender("Alex", 2), offenders.get(0));
+        assertEquals(new DigRateLimiter.Offender("Steve", 1), offenders.get(1));
+        assertTrue(limiter.drainOffenders().isEmpty());
+        assertEquals(3, limiter.droppedTotal());
+    }
+}
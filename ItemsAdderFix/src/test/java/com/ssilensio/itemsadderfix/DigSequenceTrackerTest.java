@@ -0,0 +1,43 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DigSequenceTrackerTest {
+    private final DigSequenceTracker tracker = new DigSequenceTracker();
+
+    @Test
+    void acceptsMatchingFinishOnce() {
+        tracker.recordStart(1, BlockPositions.pack(10, 64, -3));
+        assertEquals(0, tracker.finish(1, 10, 64, -3));
+        assertEquals(BlockDigSanitizer.REASON_ORPHAN, tracker.finish(1, 10, 64, -3));
+    }
+
+    @Test
+    void rejectsFinishWithoutStart() {
+        assertEquals(BlockDigSanitizer.REASON_ORPHAN, tracker.finish(7, 0, 64, 0));
+    }
+
+    @Test
+    void rejectsFinishForDroppedStart() {
+        tracker.recordStart(1, BlockPositions.pack(10, 64, -3));
+        tracker.recordStart(1, BlockPositions.NO_POSITION);
+        assertEquals(BlockDigSanitizer.REASON_ORPHAN, tracker.finish(1, 10, 64, -3));
+    }
+
+    @Test
+    void rejectsMismatchedFinishAndKeepsActiveDig() {
+        tracker.recordStart(1, BlockPositions.pack(10, 64, -3));
+        assertEquals(BlockDigSanitizer.REASON_MISMATCHED, tracker.finish(1, 11, 64, -3));
+        assertEquals(0, tracker.finish(1, 10, 64, -3));
+    }
+
+    @Test
+    void newStartReplacesPreviousTarget() {
+        tracker.recordStart(1, BlockPositions.pack(1, 2, 3));
+        tracker.recordStart(1, BlockPositions.pack(4, 5, 6));
+        assertEquals(BlockDigSanitizer.REASON_MISMATCHED, tracker.finish(1, 1, 2, 3));
+        assertEquals(0, tracker.finish(1, 4, 5, 6));
+    }
+}
@@ -0,0 +1,82 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HoverEventNormalizationServiceTest {
+    private static final String LEGACY = "{\"text\":\"x\",\"hoverEvent\":{\"action\":\"show_entity\","
+            + "\"contents\":{\"type\":\"minecraft:zombie\",\"id\":[1,2,3,4]}}}";
+    private static final String PLAIN = "{\"text\":\"hello\"}";
+    private static final String FIXED_ID = "00000001-0000-0002-0000-000300000004";
+
+    private final HoverEventUuidNormalizer normalizer = new HoverEventUuidNormalizer();
+    private final Logger logger = Logger.getLogger("HoverEventNormalizationServiceTest");
+    private final PluginMetrics metrics = new PluginMetrics();
+
+    @Test
+    void normalizesThroughTheSharedCache() {
+        PluginState state = state(new HoverEventUuidNormalizer.NormalizationOptions(true, true));
+        HoverEventNormalizationService service = service(state);
+
+        String normalized = service.normalize(LEGACY);
+        assertTrue(normalized.contains(FIXED_ID));
+        assertEquals(1, state.normalizationCache().size());
+        assertSame(PLAIN, service.normalize(PLAIN));
+        assertEquals(2, metrics.serviceNormalizations());
+        assertEquals(1, metrics.serviceRewrites());
+        assertEquals(1L, (long) metrics.snapshot().get("fixes"));
+        assertEquals(Map.of(FIXED_ID, 1L), metrics.topFixes(1));
+        assertEquals(0, metrics.components());
+    }
+
+    @Test
+    void normalizesBatchesInOrder() {
+        HoverEventNormalizationService service = service(state(new HoverEventUuidNormalizer.NormalizationOptions(true, true)));
+
+        List<String> normalized = service.normalizeAll(Arrays.asList(PLAIN, LEGACY, null, ""));
+        assertEquals(4, normalized.size());
+        assertSame(PLAIN, normalized.get(0));
+        assertTrue(normalized.get(1).contains(FIXED_ID));
+        assertNull(normalized.get(2));
+        assertEquals("", normalized.get(3));
+        assertEquals(2, metrics.serviceNormalizations());
+        assertEquals(1, metrics.serviceRewrites());
+        assertEquals(0, metrics.components());
+    }
+
+    @Test
+    void checksWithConfiguredOptions() {
+        HoverEventNormalizationService service = service(state(new HoverEventUuidNormalizer.NormalizationOptions(false, true)));
+
+        assertFalse(service.needsNormalization(LEGACY));
+        assertFalse(service.needsNormalization(PLAIN));
+        assertFalse(service.needsNormalization("not json"));
+        assertEquals(0, metrics.serviceNormalizations());
+    }
+
+    @Test
+    void worksWithoutPluginState() {
+        HoverEventNormalizationService service = service(null);
+
+        assertTrue(service.needsNormalization(LEGACY));
+        assertTrue(service.normalize(LEGACY).contains(FIXED_ID));
+    }
+
+    private HoverEventNormalizationService service(PluginState state) {
+        return new HoverEventNormalizationService(new NormalizationPipeline(normalizer, metrics), () -> state, metrics);
+    }
+
+    private PluginState state(HoverEventUuidNormalizer.NormalizationOptions options) {
+        return PluginState.build(PluginSettings.offline(options, true), null, normalizer, logger, null);
+    }
+}
@@ -0,0 +1,180 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Property and cost fuzzing for {@link HoverEventUuidNormalizer}. The default
+ * iteration count keeps the suite fast; raise {@code iafix.fuzz.iterations}
+ * for a longer hunt. The slowest inputs by cost per byte are written to
+ * {@code iafix.fuzz.output}, which Maven points at {@code target/fuzz}
+ * (other runners fall back to the temp directory), so they can be promoted
+ * to the fixtures in {@code src/test/resources/fuzz}.
+ */
+class HoverEventUuidNormalizerFuzzTest {
+    private static final int ITERATIONS = Integer.getInteger("iafix.fuzz.iterations", 500);
+    private static final long SEED = Long.getLong("iafix.fuzz.seed", 0x1AF1L);
+    private static final int KEEP_SLOWEST = 5;
+    private static final long FIXTURE_BUDGET_NANOS = 500_000_000L;
+
+    private final HoverEventUuidNormalizer normalizer = new HoverEventUuidNormalizer();
+    private final HoverEventUuidNormalizer.NormalizationOptions options =
+            new HoverEventUuidNormalizer.NormalizationOptions(true, true);
+
+    @Test
+    void outputEqualsInputWithoutLegacyIds() {
+        ComponentJsonGenerator generator = new ComponentJsonGenerator(SEED, false, 6, 4, 200);
+        for (int i = 0; i < ITERATIONS; i++) {
+            String json = generator.next().json();
+            String normalized = normalizer.normalize(json, options,
+                    record -> fail("Unexpected conversion in " + json));
+            assertSame(json, normalized, json);
+        }
+    }
+
+    @Test
+    void convertsEveryLegacyIdExactlyOnce() {
+        ComponentJsonGenerator generator = new ComponentJsonGenerator(SEED + 1, true, 6, 4, 200);
+        for (int i = 0; i < ITERATIONS; i++) {
+            ComponentJsonGenerator.Generated generated = generator.next();
+            AtomicInteger records = new AtomicInteger();
+            String normalized = normalizer.normalize(generated.json(), options, record -> records.incrementAndGet());
+
+            assertEquals(generated.legacyCount(), records.get(), generated.json());
+            assertSame(normalized, normalizer.normalize(normalized, options,
+                    record -> fail("Legacy id survived in " + normalized)));
+        }
+    }
+
+    @Test
+    void ranksInputsByCostPerByte() throws IOException {
+        ThreadMXBean threads = allocationBean();
+        ComponentJsonGenerator generator = new ComponentJsonGenerator(SEED + 2, true, 12, 6, 400);
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < ITERATIONS; i++) {
+            String json = generator.next().json();
+            if (json.length() >= 64) {
+                samples.add(measure(json, threads));
+            }
+        }
+        assertTrue(samples.size() > 0);
+
+        samples.sort(Comparator.comparingDouble(Sample::nanosPerByte).reversed());
+        String configured = System.getProperty("iafix.fuzz.output");
+        Path output = configured != null && !configured.isBlank()
+                ? Path.of(configured)
+                : Path.of(System.getProperty("java.io.tmpdir"), "itemsadderfix-fuzz");
+        Files.createDirectories(output);
+        StringBuilder report = new StringBuilder();
+        for (int i = 0; i < Math.min(KEEP_SLOWEST, samples.size()); i++) {
+            Sample sample = samples.get(i);
+            Files.writeString(output.resolve("slowest-" + (i + 1) + ".json"), sample.json() + "\n", StandardCharsets.UTF_8);
+            report.append(String.format(Locale.ROOT, "#%d %,d bytes %.1f ns/byte %s alloc/byte%n", i + 1,
+                    sample.json().length(), sample.nanosPerByte(),
+                    sample.allocatedBytes() < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f", sample.allocatedPerByte())));
+        }
+        Files.writeString(output.resolve("report.txt"), report.toString(), StandardCharsets.UTF_8);
+
+        if (threads != null) {
+            List<Sample> byAllocation = new ArrayList<>(samples);
+            byAllocation.sort(Comparator.comparingDouble(Sample::allocatedPerByte));
+            double median = byAllocation.get(byAllocation.size() / 2).allocatedPerByte();
+            double worst = byAllocation.get(byAllocation.size() - 1).allocatedPerByte();
+            assertTrue(worst <= median * 20 + 256, "Allocation per byte " + worst + " vs median " + median
+                    + " for " + byAllocation.get(byAllocation.size() - 1).json());
+        }
+    }
+
+    @Test
+    void regressionFixturesStayLinear() throws IOException {
+        ThreadMXBean threads = allocationBean();
+        for (String line : readResourceLines("fuzz/fixtures.txt")) {
+            String[] parts = line.split(" ");
+            String json = String.join("\n", readResourceLines("fuzz/" + parts[0]));
+            int expectedFixes = Integer.parseInt(parts[1]);
+
+            AtomicInteger records = new AtomicInteger();
+            normalizer.normalize(json, options, record -> records.incrementAndGet());
+            assertEquals(expectedFixes, records.get(), parts[0]);
+
+            Sample sample = measure(json, threads);
+            assertTrue(sample.nanos() < FIXTURE_BUDGET_NANOS, parts[0] + " took " + sample.nanos() / 1_000_000 + " ms");
+            if (threads != null) {
+                assertTrue(sample.allocatedPerByte() < 200, parts[0] + " allocated "
+                        + sample.allocatedPerByte() + " bytes per input byte");
+            }
+        }
+    }
+
+    private Sample measure(String json, ThreadMXBean threads) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            long started = System.nanoTime();
+            normalizer.normalize(json, options, null);
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        long allocated = -1;
+        if (threads != null) {
+            long thread = Thread.currentThread().getId();
+            long before = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(thread);
+            normalizer.normalize(json, options, null);
+            allocated = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(thread) - before;
+        }
+        return new Sample(json, best, allocated);
+    }
+
+    private static ThreadMXBean allocationBean() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean allocation
+                && allocation.isThreadAllocatedMemorySupported()) {
+            allocation.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    private List<String> readResourceLines(String name) throws IOException {
+        InputStream input = getClass().getClassLoader().getResourceAsStream(name);
+        assertNotNull(input, name);
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private record Sample(String json, long nanos, long allocatedBytes) {
+        double nanosPerByte() {
+            return (double) nanos / json.length();
+        }
+
+        double allocatedPerByte() {
+            return (double) allocatedBytes / json.length();
+        }
+    }
+}
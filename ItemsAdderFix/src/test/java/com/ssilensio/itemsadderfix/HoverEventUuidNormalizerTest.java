@@ -11,8 +11,10 @@ import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class HoverEventUuidNormalizerTest {
     private final HoverEventUuidNormalizer normalizer = new HoverEventUuidNormalizer();
@@ -112,6 +114,16 @@ class HoverEventUuidNormalizerTest {
         assertEquals(component.toString(), result);
     }
 
+    @Test
+    void checksWithoutRewriting() {
+        String legacy = "{\"hoverEvent\":{\"action\":\"show_entity\",\"contents\":{\"id\":{\"most\":1,\"least\":2}}}}";
+
+        assertTrue(normalizer.needsNormalization(legacy, options));
+        assertFalse(normalizer.needsNormalization(legacy, new HoverEventUuidNormalizer.NormalizationOptions(true, false)));
+        assertFalse(normalizer.needsNormalization("{\"text\":\"plain\"}", options));
+        assertFalse(normalizer.needsNormalization("{broken", options));
+    }
+
     @Test
     void returnsNullWhenArraySizeUnexpected() {
         JsonArray payload = new JsonArray();
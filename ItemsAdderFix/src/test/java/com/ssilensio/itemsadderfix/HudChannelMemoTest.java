@@ -0,0 +1,116 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class HudChannelMemoTest {
+    private static final String LEGACY = "{\"text\":\"zombie\",\"hoverEvent\":{\"action\":\"show_entity\","
+            + "\"contents\":{\"type\":\"minecraft:zombie\",\"id\":[1,2,3,4]}}}";
+    private static final String PLAIN = "{\"text\":\"hello\"}";
+    private static final HoverEventUuidNormalizer.NormalizationOptions OPTIONS =
+            new HoverEventUuidNormalizer.NormalizationOptions(true, true);
+
+    private final HoverEventUuidNormalizer normalizer = new HoverEventUuidNormalizer();
+    private final NormalizationPipeline pipeline = new NormalizationPipeline(normalizer);
+    private final PluginState state = PluginState.build(PluginSettings.offline(OPTIONS, false),
+            null, normalizer, Logger.getLogger("HudChannelMemoTest"), null);
+
+    @Test
+    void mapsPacketTypesToChannels() {
+        assertEquals(HudChannelMemo.Channel.ACTION_BAR, HudChannelMemo.Channel.of("SET_ACTION_BAR_TEXT"));
+        assertEquals(HudChannelMemo.Channel.TAB_LIST, HudChannelMemo.Channel.of("PLAYER_LIST_HEADER_FOOTER"));
+        assertEquals(UUID.class, HudChannelMemo.Channel.of("BOSS").qualifierType());
+        assertEquals(String.class, HudChannelMemo.Channel.of("SCOREBOARD_TEAM").qualifierType());
+        assertNull(HudChannelMemo.Channel.of("SYSTEM_CHAT"));
+    }
+
+    @Test
+    void answersUnchangedResendFromMemo() {
+        HudChannelMemo.PlayerMemo memo = memo(7);
+        ComponentBatch first = send(memo, HudChannelMemo.Channel.ACTION_BAR, null, LEGACY);
+        ComponentBatch resend = batch(new String(LEGACY));
+
+        assertEquals(1, memo.resolve(resend, HudChannelMemo.Channel.ACTION_BAR, null, OPTIONS));
+        assertSame(first.normalized(0), resend.normalized(0));
+        assertEquals(1, pipeline.normalizeBatch(resend, state, "Steve"));
+        assertSame(first.normalized(0), resend.normalized(0));
+    }
+
+    @Test
+    void missesWhenTextOrChannelChanges() {
+        HudChannelMemo.PlayerMemo memo = memo(7);
+        send(memo, HudChannelMemo.Channel.TITLE, null, LEGACY);
+
+        assertEquals(0, memo.resolve(batch(PLAIN), HudChannelMemo.Channel.TITLE, null, OPTIONS));
+        assertEquals(0, memo.resolve(batch(LEGACY), HudChannelMemo.Channel.SUBTITLE, null, OPTIONS));
+    }
+
+    @Test
+    void keepsQualifiedChannelsApart() {
+        HudChannelMemo.PlayerMemo memo = memo(7);
+        send(memo, HudChannelMemo.Channel.SCOREBOARD_OBJECTIVE, "sidebar", LEGACY);
+        send(memo, HudChannelMemo.Channel.SCOREBOARD_OBJECTIVE, null, PLAIN);
+
+        assertEquals(1, memo.resolve(batch(LEGACY), HudChannelMemo.Channel.SCOREBOARD_OBJECTIVE, "sidebar", OPTIONS));
+        assertEquals(0, memo.resolve(batch(LEGACY), HudChannelMemo.Channel.SCOREBOARD_OBJECTIVE, "list", OPTIONS));
+        assertEquals(0, memo.resolve(batch(PLAIN), HudChannelMemo.Channel.SCOREBOARD_OBJECTIVE, null, OPTIONS));
+    }
+
+    @Test
+    void forgetsEntriesWhenOptionsChange() {
+        HudChannelMemo.PlayerMemo memo = memo(7);
+        send(memo, HudChannelMemo.Channel.ACTION_BAR, null, LEGACY);
+
+        ComponentBatch batch = batch(LEGACY);
+        assertEquals(0, memo.resolve(batch, HudChannelMemo.Channel.ACTION_BAR, null,
+                new HoverEventUuidNormalizer.NormalizationOptions(false, true)));
+        assertFalse(batch.resolved(0));
+        assertEquals(0, memo.resolve(batch, HudChannelMemo.Channel.ACTION_BAR, null, OPTIONS));
+    }
+
+    @Test
+    void tracksPlayersByEntityId() {
+        HudChannelMemo memos = new HudChannelMemo();
+        assertNull(memos.player(7));
+        memos.track(7);
+        HudChannelMemo.PlayerMemo memo = memos.player(7);
+
+        memos.track(7);
+        assertSame(memo, memos.player(7));
+        assertEquals(1, memos.players());
+        memos.clear();
+        assertEquals(0, memos.players());
+        assertNull(memos.player(7));
+        assertEquals(0, memos.players());
+        memos.track(7);
+        assertNotSame(memo, memos.player(7));
+    }
+
+    private static HudChannelMemo.PlayerMemo memo(int entityId) {
+        HudChannelMemo memos = new HudChannelMemo();
+        memos.track(entityId);
+        return memos.player(entityId);
+    }
+
+    private ComponentBatch send(HudChannelMemo.PlayerMemo memo, HudChannelMemo.Channel channel, Object qualifier, String json) {
+        ComponentBatch batch = batch(json);
+        memo.resolve(batch, channel, qualifier, OPTIONS);
+        pipeline.normalizeBatch(batch, state, "Steve");
+        memo.remember(batch, channel, qualifier);
+        return batch;
+    }
+
+    private static ComponentBatch batch(String json) {
+        ComponentBatch batch = new ComponentBatch();
+        batch.add("HUD", json, null, 0);
+        return batch;
+    }
+}
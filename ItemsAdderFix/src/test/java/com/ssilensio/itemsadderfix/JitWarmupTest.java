@@ -0,0 +1,43 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class JitWarmupTest {
+    private final HoverEventUuidNormalizer normalizer = new HoverEventUuidNormalizer();
+    private final HoverEventUuidNormalizer.NormalizationOptions options =
+            new HoverEventUuidNormalizer.NormalizationOptions(true, true);
+
+    @Test
+    void bundledCorpusContainsLegacyPayloads() throws IOException {
+        List<String> corpus = JitWarmup.readCorpus(getClass().getClassLoader().getResourceAsStream(JitWarmup.CORPUS_RESOURCE));
+
+        assertFalse(corpus.isEmpty());
+        long legacy = corpus.stream()
+                .filter(json -> !normalizer.normalize(json, options, null).equals(json))
+                .count();
+        assertEquals(4, legacy);
+    }
+
+    @Test
+    void runsRequestedIterations() throws IOException {
+        List<String> corpus = JitWarmup.readCorpus(getClass().getClassLoader().getResourceAsStream(JitWarmup.CORPUS_RESOURCE));
+
+        JitWarmup.Result result = JitWarmup.run(normalizer, options, new BlockDigSanitizer(12), corpus, 3);
+
+        assertEquals(3L * corpus.size(), result.normalizations());
+        assertEquals(6, result.decisions());
+        assertNotEquals(0, result.sink());
+    }
+
+    @Test
+    void toleratesMissingCorpus() throws IOException {
+        assertEquals(List.of(), JitWarmup.readCorpus(null));
+    }
+}
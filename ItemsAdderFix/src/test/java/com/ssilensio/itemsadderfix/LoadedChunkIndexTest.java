@@ -0,0 +1,63 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadedChunkIndexTest {
+    private final LoadedChunkIndex index = new LoadedChunkIndex();
+
+    @Test
+    void tracksLoadAndUnloadPerWorld() {
+        UUID overworld = UUID.randomUUID();
+        UUID nether = UUID.randomUUID();
+        index.track(overworld);
+        index.track(nether);
+        index.markLoaded(overworld, 2, -3);
+
+        LoadedChunkIndex.WorldChunks chunks = index.world(overworld);
+        assertNotNull(chunks);
+        assertTrue(chunks.isChunkLoaded(2, -3));
+        assertFalse(chunks.isChunkLoaded(-3, 2));
+        assertFalse(index.world(nether).isChunkLoaded(2, -3));
+
+        index.markUnloaded(overworld, 2, -3);
+        assertFalse(chunks.isChunkLoaded(2, -3));
+    }
+
+    @Test
+    void distinguishesNegativeCoordinates() {
+        UUID world = UUID.randomUUID();
+        index.track(world);
+        index.markLoaded(world, -1, -1);
+        index.markLoaded(world, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+        LoadedChunkIndex.WorldChunks chunks = index.world(world);
+        assertTrue(chunks.isChunkLoaded(-1, -1));
+        assertTrue(chunks.isChunkLoaded(Integer.MAX_VALUE, Integer.MIN_VALUE));
+        assertFalse(chunks.isChunkLoaded(-1, 0));
+        assertFalse(chunks.isChunkLoaded(0, -1));
+    }
+
+    @Test
+    void ignoresLoadsInUntrackedWorlds() {
+        UUID world = UUID.randomUUID();
+        index.markLoaded(world, 0, 0);
+        assertNull(index.world(world));
+    }
+
+    @Test
+    void forgetsUntrackedWorlds() {
+        UUID world = UUID.randomUUID();
+        index.track(world);
+        index.markLoaded(world, 0, 0);
+        index.untrack(world);
+        assertNull(index.world(world));
+        assertNull(index.world(null));
+    }
+}
@@ -0,0 +1,128 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsCollectorTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void roundTripsFramesWithoutZeroCounters() throws IOException {
+        MetricsFrame frame = new MetricsFrame("lobby-1", 100, 200,
+                Map.of("components", 40L, "rewrites", 0L, "rewrites.SYSTEM_CHAT", 3L));
+        byte[] encoded = frame.encode();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(concat(encoded, encoded)));
+
+        MetricsFrame read = MetricsFrame.read(in);
+        assertEquals("lobby-1", read.serverId());
+        assertEquals(100, read.startedAt());
+        assertEquals(200, read.timestamp());
+        assertEquals(Map.of("components", 40L, "rewrites.SYSTEM_CHAT", 3L), read.counters());
+        assertEquals(read, MetricsFrame.read(in));
+        assertNull(MetricsFrame.read(in));
+    }
+
+    @Test
+    void reportsMostFixedUuidsAcrossServers() throws IOException {
+        Map<String, Long> fixes = new LinkedHashMap<>();
+        for (int i = 0; i < MetricsFrame.MAX_FIXES + 4; i++) {
+            fixes.put("uuid-" + i, 100L - i);
+        }
+        MetricsFrame frame = new MetricsFrame("a", 1, 10, Map.of("components", 1L), fixes);
+        MetricsFrame read = MetricsFrame.read(new DataInputStream(new ByteArrayInputStream(frame.encode())));
+        assertEquals(MetricsFrame.MAX_FIXES, read.fixes().size());
+
+        MetricsCollector collector = new MetricsCollector(60_000);
+        collector.accept(read, 1_000);
+        collector.accept(new MetricsFrame("b", 1, 10, Map.of("components", 1L), Map.of("uuid-2", 5L)), 1_000);
+        assertTrue(collector.report(1_000).contains("Most fixed UUIDs: uuid-2 103, uuid-0 100, uuid-1 99."),
+                collector.report(1_000));
+    }
+
+    @Test
+    void parsesTargets() {
+        assertInstanceOf(UnixDomainSocketAddress.class, MetricsFrame.address("unix:/tmp/metrics.sock"));
+        InetSocketAddress tcp = (InetSocketAddress) MetricsFrame.address("tcp:collector.local:7420");
+        assertEquals("collector.local", tcp.getHostString());
+        assertEquals(7420, tcp.getPort());
+        assertThrows(IllegalArgumentException.class, () -> MetricsFrame.address("collector.local:7420"));
+        assertThrows(IllegalArgumentException.class, () -> MetricsFrame.address("tcp:collector.local"));
+    }
+
+    @Test
+    void mergesRunningTotalsAcrossServersAndRestarts() {
+        MetricsCollector collector = new MetricsCollector(60_000);
+
+        assertTrue(collector.accept(frame("a", 1, 10, 100, 5), 1_000));
+        assertTrue(collector.accept(frame("a", 1, 20, 150, 7), 2_000));
+        assertFalse(collector.accept(frame("a", 1, 20, 150, 7), 2_500));
+        assertFalse(collector.accept(frame("a", 1, 15, 120, 6), 2_500));
+        assertTrue(collector.accept(frame("b", 5, 10, 30, 0), 3_000));
+        assertTrue(collector.accept(frame("a", 2, 30, 10, 1), 4_000));
+
+        assertEquals(2, collector.servers());
+        assertEquals(160L, (long) collector.totals("a").get("components"));
+        assertEquals(8L, (long) collector.totals("a").get("rewrites"));
+        assertEquals(190L, (long) collector.totals().get("components"));
+    }
+
+    @Test
+    void reportsOnlyTheRollingWindow() {
+        MetricsCollector collector = new MetricsCollector(10_000);
+        collector.accept(frame("a", 1, 10, 100, 5), 1_000);
+        collector.accept(frame("a", 1, 20, 300, 9), 8_000);
+
+        assertEquals(300L, (long) collector.recent(9_000).get("components"));
+        assertTrue(collector.report(9_000).contains("300 components, 9 rewritten (3.00%)"));
+        assertTrue(collector.report(9_000).contains("Top rewrites: SYSTEM_CHAT 9."));
+        assertEquals(200L, (long) collector.recent(15_000).get("components"));
+        assertTrue(collector.recent(30_000).isEmpty());
+    }
+
+    @Test
+    void storeSurvivesRestart() throws IOException {
+        Path store = folder.resolve("metrics-store.bin");
+        MetricsCollector collector = new MetricsCollector(60_000);
+        collector.accept(new MetricsFrame("a", 1, 10, frame("a", 1, 10, 100, 5).counters(), Map.of("uuid-0", 7L)), 1_000);
+        collector.save(store, 2_000);
+
+        MetricsCollector restarted = new MetricsCollector(60_000);
+        assertEquals(1, restarted.load(store));
+        assertEquals(Map.entry("uuid-0", 7L), restarted.fixes().get(0));
+        assertFalse(restarted.accept(frame("a", 1, 10, 100, 5), 3_000));
+        assertTrue(restarted.accept(frame("a", 1, 20, 140, 5), 3_000));
+        assertEquals(140L, (long) restarted.totals("a").get("components"));
+        assertEquals(40L, (long) restarted.recent(3_000).get("components"));
+    }
+
+    private static MetricsFrame frame(String serverId, long startedAt, long timestamp, long components, long rewrites) {
+        return new MetricsFrame(serverId, startedAt, timestamp, Map.of(
+                "components", components,
+                "rewrites", rewrites,
+                PluginMetrics.REWRITES_PREFIX + "SYSTEM_CHAT", rewrites));
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] joined = new byte[first.length + second.length];
+        System.arraycopy(first, 0, joined, 0, first.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+}
@@ -0,0 +1,144 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsExporterTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void spoolsWhileCollectorIsDownAndCatchesUpLater() throws IOException {
+        Path socket = folder.resolve("collector.sock");
+        Path spool = folder.resolve("export-spool.bin");
+        MetricsExporter exporter = exporter("unix:" + socket, spool, 10);
+
+        assertFalse(exporter.export(frame(1_000, 10)));
+        assertFalse(exporter.export(frame(2_000, 25)));
+        assertTrue(Files.size(spool) > 0);
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            assertTrue(exporter.export(frame(3_000, 40)));
+            exporter.close();
+
+            try (SocketChannel client = server.accept();
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)))) {
+                assertEquals(10L, (long) MetricsFrame.read(in).counters().get("components"));
+                assertEquals(25L, (long) MetricsFrame.read(in).counters().get("components"));
+                assertEquals(3_000, MetricsFrame.read(in).timestamp());
+            }
+        }
+        assertFalse(Files.exists(spool));
+        assertEquals(0, exporter.dropped());
+    }
+
+    @Test
+    void exportsOncePerInterval() throws IOException {
+        Path spool = folder.resolve("export-spool.bin");
+        MetricsExporter exporter = exporter("unix:" + folder.resolve("missing.sock"), spool, 10);
+        PluginMetrics metrics = new PluginMetrics();
+        metrics.recordNormalization(4, 1, 1_000);
+
+        exporter.tick(metrics, 20_000);
+        long spooled = Files.size(spool);
+        exporter.tick(metrics, 25_000);
+        assertEquals(spooled, Files.size(spool));
+        exporter.tick(metrics, 30_000);
+        assertEquals(2 * spooled, Files.size(spool));
+    }
+
+    @Test
+    void flushSpoolsTheAuditSummaryWithoutSending() throws IOException {
+        Path socket = folder.resolve("collector.sock");
+        Path spool = folder.resolve("export-spool.bin");
+        MetricsExporter exporter = exporter("unix:" + socket, spool, 10);
+        PluginMetrics metrics = new PluginMetrics();
+        metrics.recordFix("00000001-0000-0002-0000-000300000004");
+        metrics.recordFix("00000005-0000-0006-0000-000700000008");
+        metrics.recordFix("00000001-0000-0002-0000-000300000004");
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            assertTrue(exporter.export(frame(1_000, 10)));
+            exporter.flush(metrics, 2_000);
+            exporter.close();
+        }
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(spool))) {
+            MetricsFrame frame = MetricsFrame.read(in);
+            assertEquals(2_000, frame.timestamp());
+            assertEquals(3L, (long) frame.counters().get("fixes"));
+            assertEquals(2L, (long) frame.counters().get("fixed_uuids"));
+            assertEquals(List.of("00000001-0000-0002-0000-000300000004", "00000005-0000-0006-0000-000700000008"),
+                    List.copyOf(frame.fixes().keySet()));
+            assertEquals(2L, (long) frame.fixes().get("00000001-0000-0002-0000-000300000004"));
+        }
+    }
+
+    @Test
+    void flushDoesNotWaitForASendInProgress() throws Exception {
+        Path socket = folder.resolve("collector.sock");
+        Path spool = folder.resolve("export-spool.bin");
+        MetricsExporter exporter = exporter("unix:" + socket, spool, 10);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread ticker = new Thread(() -> {
+            synchronized (exporter) {
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        ticker.start();
+        sending.await();
+
+        exporter.flush(new PluginMetrics(), 2_000);
+        assertTrue(Files.size(spool) > 0);
+        release.countDown();
+        ticker.join();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            long spooled = Files.size(spool);
+            assertFalse(exporter.export(frame(3_000, 1)));
+            assertTrue(Files.size(spool) > spooled);
+        }
+    }
+
+    @Test
+    void usesConfiguredServerId() {
+        assertEquals("lobby-1", exporter("tcp:localhost:7420", null, 10).serverId());
+    }
+
+    private static MetricsExporter exporter(String target, Path spool, int intervalSeconds) {
+        return new MetricsExporter(new PluginSettings.ExportSettings(true, "lobby-1", target, intervalSeconds, 1),
+                spool, Logger.getLogger("MetricsExporterTest"));
+    }
+
+    private static MetricsFrame frame(long timestamp, long components) {
+        return new MetricsFrame("lobby-1", 1, timestamp, Map.of("components", components));
+    }
+}
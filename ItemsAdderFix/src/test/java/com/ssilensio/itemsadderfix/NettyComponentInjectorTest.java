@@ -0,0 +1,76 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NettyComponentInjectorTest {
+    interface Component {}
+
+    static final class TextComponent implements Component {}
+
+    static class BasePacket {
+        private final Component header = null;
+    }
+
+    static final class TitlePacket extends BasePacket {
+        private static Component shared;
+        private final TextComponent title = null;
+        private final String plain = null;
+    }
+
+    record ChatPacket(Component content, boolean overlay) {}
+
+    record PositionPacket(int x, int y, int z) {}
+
+    record ObjectivePacket(String objectiveName, Component displayName, int method) {}
+
+    @Test
+    void collectsComponentFieldsIncludingSuperclasses() {
+        NettyComponentInjector.PacketComponents components =
+                NettyComponentInjector.PacketComponents.of("SET_TITLE_TEXT", TitlePacket.class, Component.class);
+
+        assertEquals("SET_TITLE_TEXT", components.packetType());
+        assertArrayEquals(new String[] {"title", "header"}, names(components.fields()));
+    }
+
+    @Test
+    void readsRecordComponents() throws IllegalAccessException {
+        NettyComponentInjector.PacketComponents components =
+                NettyComponentInjector.PacketComponents.of("SYSTEM_CHAT", ChatPacket.class, Component.class);
+        TextComponent content = new TextComponent();
+
+        assertEquals(1, components.fields().length);
+        assertEquals(content, components.fields()[0].get(new ChatPacket(content, false)));
+    }
+
+    @Test
+    void skipsClassesWithoutComponents() {
+        assertNull(NettyComponentInjector.PacketComponents.of("BLOCK_CHANGE", PositionPacket.class, Component.class));
+    }
+
+    @Test
+    void findsHudChannelAndQualifier() {
+        NettyComponentInjector.PacketComponents objective =
+                NettyComponentInjector.PacketComponents.of("SCOREBOARD_OBJECTIVE", ObjectivePacket.class, Component.class);
+        NettyComponentInjector.PacketComponents title =
+                NettyComponentInjector.PacketComponents.of("SET_TITLE_TEXT", TitlePacket.class, Component.class);
+        NettyComponentInjector.PacketComponents chat =
+                NettyComponentInjector.PacketComponents.of("SYSTEM_CHAT", ChatPacket.class, Component.class);
+
+        assertEquals(HudChannelMemo.Channel.SCOREBOARD_OBJECTIVE, objective.hudChannel());
+        assertEquals("objectiveName", objective.qualifier().getName());
+        assertEquals(HudChannelMemo.Channel.TITLE, title.hudChannel());
+        assertNull(title.qualifier());
+        assertNull(chat.hudChannel());
+    }
+
+    private static String[] names(Field[] fields) {
+        return Arrays.stream(fields).map(Field::getName).toArray(String[]::new);
+    }
+}
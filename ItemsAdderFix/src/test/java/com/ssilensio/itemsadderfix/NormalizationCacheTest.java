@@ -0,0 +1,117 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NormalizationCacheTest {
+    private static final String LEGACY = "{\"text\":\"Zombie\",\"hoverEvent\":{\"action\":\"show_entity\","
+            + "\"contents\":{\"type\":\"minecraft:zombie\",\"id\":[1,2,3,4]}}}";
+    private static final String PLAIN = "{\"text\":\"hello\"}";
+
+    private final HoverEventUuidNormalizer.NormalizationOptions options =
+            new HoverEventUuidNormalizer.NormalizationOptions(true, true);
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void replaysRecordsForCachedPayloads() {
+        NormalizationCache cache = new NormalizationCache(new HoverEventUuidNormalizer(), options, 64);
+
+        List<String> uuids = new ArrayList<>();
+        String first = cache.normalize(LEGACY, record -> uuids.add(record.normalizedUuid()));
+        String second = cache.normalize(LEGACY, record -> uuids.add(record.normalizedUuid()));
+
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+        assertEquals(List.of("00000001-0000-0002-0000-000300000004", "00000001-0000-0002-0000-000300000004"), uuids);
+    }
+
+    @Test
+    void doesNotCacheUnchangedPayloads() {
+        NormalizationCache cache = new NormalizationCache(new HoverEventUuidNormalizer(), options, 64);
+
+        assertSame(PLAIN, cache.normalize(PLAIN, null));
+        assertEquals(0, cache.size());
+        assertFalse(cache.isDirty());
+    }
+
+    @Test
+    void snapshotRoundTripStartsHot() throws IOException {
+        Path file = folder.resolve(NormalizationCache.FILE_NAME);
+        NormalizationCache cache = new NormalizationCache(new HoverEventUuidNormalizer(), options, 64);
+        String expected = cache.normalize(LEGACY, null);
+        assertTrue(cache.isDirty());
+        assertEquals(1, cache.save(file));
+        assertFalse(cache.isDirty());
+
+        NormalizationCache restored = new NormalizationCache(new HoverEventUuidNormalizer(), options, 64);
+        assertEquals(1, restored.load(file));
+        assertFalse(restored.isDirty());
+
+        List<String> uuids = new ArrayList<>();
+        String first = restored.normalize(LEGACY, record -> uuids.add(record.normalizedUuid()));
+        assertEquals(expected, first);
+        assertSame(first, restored.normalize(LEGACY, null));
+        assertFalse(restored.isDirty());
+        assertEquals(1, uuids.size());
+    }
+
+    @Test
+    void ignoresSnapshotsWrittenWithOtherOptions() throws IOException {
+        Path file = folder.resolve(NormalizationCache.FILE_NAME);
+        NormalizationCache cache = new NormalizationCache(new HoverEventUuidNormalizer(), options, 64);
+        cache.normalize(LEGACY, null);
+        cache.save(file);
+
+        NormalizationCache other = new NormalizationCache(new HoverEventUuidNormalizer(),
+                new HoverEventUuidNormalizer.NormalizationOptions(true, false), 64);
+        assertEquals(-1, other.load(file));
+        assertEquals(0, other.size());
+    }
+
+    @Test
+    void savingMergesEntriesFromSharedSnapshot() throws IOException {
+        Path file = folder.resolve(NormalizationCache.FILE_NAME);
+        String otherLegacy = LEGACY.replace("[1,2,3,4]", "[5,6,7,8]");
+
+        NormalizationCache serverA = new NormalizationCache(new HoverEventUuidNormalizer(), options, 64);
+        serverA.normalize(LEGACY, null);
+        serverA.save(file);
+
+        NormalizationCache serverB = new NormalizationCache(new HoverEventUuidNormalizer(), options, 64);
+        serverB.normalize(otherLegacy, null);
+        assertEquals(2, serverB.save(file));
+
+        NormalizationCache restored = new NormalizationCache(new HoverEventUuidNormalizer(), options, 64);
+        assertEquals(2, restored.load(file));
+    }
+
+    @Test
+    void rejectsTruncatedSnapshots() throws IOException {
+        Path file = folder.resolve(NormalizationCache.FILE_NAME);
+        NormalizationCache cache = new NormalizationCache(new HoverEventUuidNormalizer(), options, 64);
+        cache.normalize(LEGACY, null);
+        cache.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+
+        NormalizationCache restored = new NormalizationCache(new HoverEventUuidNormalizer(), options, 64);
+        assertThrows(IOException.class, () -> restored.load(file));
+        cache.normalize(LEGACY.replace("[1,2,3,4]", "[5,6,7,8]"), null);
+        assertEquals(2, cache.save(file));
+    }
+}
@@ -0,0 +1,67 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NormalizationPipelineTest {
+    private static final String LEGACY = "{\"text\":\"zombie\",\"hoverEvent\":{\"action\":\"show_entity\","
+            + "\"contents\":{\"type\":\"minecraft:zombie\",\"id\":[1,2,3,4]}}}";
+    private static final String PLAIN = "{\"text\":\"hello\"}";
+
+    private final HoverEventUuidNormalizer normalizer = new HoverEventUuidNormalizer();
+    private final NormalizationPipeline pipeline = new NormalizationPipeline(normalizer);
+    private final PluginState state = PluginState.build(
+            PluginSettings.offline(new HoverEventUuidNormalizer.NormalizationOptions(true, true), true),
+            null, normalizer, Logger.getLogger("NormalizationPipelineTest"), null);
+
+    @Test
+    void normalizesBundleAsOneBatch() {
+        Object spawn = new Object();
+        Object metadata = new Object();
+        ComponentBatch batch = new ComponentBatch();
+        for (int i = 0; i < 10; i++) {
+            batch.add("SPAWN_ENTITY", PLAIN, spawn, i);
+        }
+        batch.add("ENTITY_METADATA", LEGACY, metadata, 3);
+
+        assertEquals(1, pipeline.normalizeBatch(batch, state, "Steve"));
+        assertEquals(11, batch.size());
+        assertFalse(batch.changed(0));
+        assertSame(PLAIN, batch.normalized(0));
+        assertTrue(batch.changed(10));
+        assertTrue(batch.normalized(10).contains("00000001-0000-0002-0000-000300000004"));
+        assertSame(metadata, batch.owner(10));
+        assertEquals(3, batch.slot(10));
+        assertEquals("ENTITY_METADATA", batch.packetType(10));
+        assertNull(batch.failure());
+    }
+
+    @Test
+    void matchesSingleNormalization() {
+        ComponentBatch batch = new ComponentBatch();
+        batch.add("SYSTEM_CHAT", LEGACY, null, 0);
+        pipeline.normalizeBatch(batch, state, null);
+
+        assertEquals(normalizer.normalize(LEGACY, state.settings().normalizationOptions(), null), batch.normalized(0));
+    }
+
+    @Test
+    void clearResetsTheBatch() {
+        ComponentBatch batch = new ComponentBatch();
+        batch.add("SYSTEM_CHAT", LEGACY, null, 0);
+        pipeline.normalizeBatch(batch, state, null);
+        batch.clear();
+
+        assertEquals(0, batch.size());
+        assertEquals(0, pipeline.normalizeBatch(batch, state, null));
+        batch.add("SYSTEM_CHAT", PLAIN, null, 0);
+        assertFalse(batch.changed(0));
+    }
+}
@@ -0,0 +1,49 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PlayerPositionSnapshotTest {
+    @Test
+    void packsAndUnpacksBlockCoordinates() {
+        int[][] samples = {{0, 0, 0}, {-1, -64, -1}, {29_999_983, 319, -29_999_983}, {-33_554_431, 2047, 33_554_431}};
+        for (int[] sample : samples) {
+            long packed = BlockPositions.pack(sample[0], sample[1], sample[2]);
+            assertEquals(sample[0], BlockPositions.x(packed));
+            assertEquals(sample[1], BlockPositions.y(packed));
+            assertEquals(sample[2], BlockPositions.z(packed));
+        }
+        assertEquals(-2047, BlockPositions.y(BlockPositions.pack(0, -5000, 0)));
+        assertNull(BlockPositions.toBlockPosition(BlockPositions.NO_POSITION));
+    }
+
+    @Test
+    void startsWithoutPosition() {
+        PlayerPositionSnapshot snapshot = new PlayerPositionSnapshot();
+        assertEquals(BlockPositions.NO_POSITION, snapshot.position());
+        assertNull(snapshot.worldId());
+    }
+
+    @Test
+    void readsPositionOnlyForMatchingWorld() {
+        UUID overworld = UUID.randomUUID();
+        UUID nether = UUID.randomUUID();
+        PlayerPositionSnapshot snapshot = new PlayerPositionSnapshot();
+        snapshot.update(overworld, 12, 64, -5);
+
+        long packed = snapshot.positionIn(overworld);
+        assertEquals(12, BlockPositions.x(packed));
+        assertEquals(64, BlockPositions.y(packed));
+        assertEquals(-5, BlockPositions.z(packed));
+        assertEquals(BlockPositions.NO_POSITION, snapshot.positionIn(nether));
+
+        snapshot.update(nether, 1, 2, 3);
+        assertEquals(nether, snapshot.worldId());
+        assertEquals(BlockPositions.NO_POSITION, snapshot.positionIn(overworld));
+        assertEquals(BlockPositions.pack(1, 2, 3), snapshot.positionIn(nether));
+    }
+}
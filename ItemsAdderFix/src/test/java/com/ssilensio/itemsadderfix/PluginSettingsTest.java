@@ -0,0 +1,126 @@
+package com.ssilensio.itemsadderfix;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PluginSettingsTest {
+    private static final Logger LOGGER = Logger.getLogger("PluginSettingsTest");
+    private static final HoverEventUuidNormalizer NORMALIZER = new HoverEventUuidNormalizer();
+
+    @Test
+    void usesDefaultsForMissingKeys() throws InvalidConfigurationException {
+        PluginSettings settings = load("");
+
+        assertTrue(settings.enabled());
+        assertFalse(settings.debug());
+        assertEquals(new PluginSettings.DebugLogSettings(20, 1024, 10), settings.debugLog());
+        assertTrue(settings.normalizationEnabled());
+        assertEquals(PluginSettings.InjectionMode.PROTOCOLLIB, settings.normalizationInjection());
+        assertTrue(settings.normalizationHudMemo());
+        assertTrue(settings.normalizationOptions().convertIntArrayPayloads());
+        assertEquals(12, settings.sanitization().maxDigDistance());
+        assertEquals(40, settings.sanitization().rateLimit().packetsPerSecond());
+        assertEquals(80, settings.sanitization().rateLimit().burst());
+        assertTrue(settings.sanitization().needsChunkTracking());
+        assertTrue(settings.sanitization().acknowledgeCancelledDigs());
+        assertTrue(settings.audit().active());
+        assertFalse(settings.export().enabled());
+        assertEquals(10, settings.export().intervalSeconds());
+        assertEquals("unix:/tmp/itemsadderfix-metrics.sock", settings.export().target());
+    }
+
+    @Test
+    void readsConfiguredValues() throws InvalidConfigurationException {
+        PluginSettings settings = load("""
+                debug: true
+                normalization:
+                  hover_event_uuid:
+                    injection: Netty
+                    hud_memo: false
+                    convert:
+                      uuid_object: false
+                sanitization:
+                  prevent_unloaded_chunk_dig: false
+                  max_dig_distance: 0
+                  unloaded_chunk_interactions:
+                    use_item_on: false
+                  dig_rate_limit:
+                    packets_per_second: 20
+                    summary_interval_seconds: 0
+                """);
+
+        assertTrue(settings.debug());
+        assertEquals(PluginSettings.InjectionMode.NETTY, settings.normalizationInjection());
+        assertFalse(settings.normalizationHudMemo());
+        assertFalse(settings.normalizationOptions().convertUuidObjectPayloads());
+        assertFalse(settings.sanitization().needsChunkTracking());
+        assertTrue(settings.sanitization().needsDigListener());
+        assertEquals(20, settings.sanitization().rateLimit().packetsPerSecond());
+        assertEquals(1, settings.sanitization().rateLimit().summaryIntervalSeconds());
+    }
+
+    @Test
+    void digDistanceAloneKeepsDigChecks() throws InvalidConfigurationException {
+        PluginSettings settings = load("""
+                sanitization:
+                  prevent_unloaded_chunk_dig: false
+                  drop_orphan_dig_packets: false
+                  unloaded_chunk_interactions:
+                    use_item_on: false
+                  dig_rate_limit:
+                    enabled: false
+                """);
+
+        assertTrue(settings.sanitization().validatesDigTargets());
+        assertTrue(settings.sanitization().needsChunkTracking());
+        assertTrue(settings.sanitization().needsDigListener());
+    }
+
+    @Test
+    void stateKeepsComponentsWhoseSettingsAreUnchanged() throws InvalidConfigurationException {
+        PluginState first = PluginState.build(load("logging:\n  handled_errors:\n    enabled: false\n"), null, NORMALIZER, LOGGER, null);
+        PluginState second = PluginState.build(load("""
+                debug: true
+                logging:
+                  handled_errors:
+                    enabled: false
+                """), first, NORMALIZER, LOGGER, null);
+
+        assertSame(first.digRateLimiter(), second.digRateLimiter());
+        assertSame(first.digSequenceTracker(), second.digSequenceTracker());
+        assertNull(second.handledErrorLogger());
+    }
+
+    @Test
+    void stateReplacesOrDropsChangedComponents() throws InvalidConfigurationException {
+        PluginState first = PluginState.build(load("logging:\n  handled_errors:\n    enabled: false\n"), null, NORMALIZER, LOGGER, null);
+        PluginState second = PluginState.build(load("""
+                logging:
+                  handled_errors:
+                    enabled: false
+                sanitization:
+                  drop_orphan_dig_packets: false
+                  dig_rate_limit:
+                    burst: 10
+                """), first, NORMALIZER, LOGGER, null);
+
+        assertNotSame(first.digRateLimiter(), second.digRateLimiter());
+        assertNull(second.digSequenceTracker());
+    }
+
+    private static PluginSettings load(String yaml) throws InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.loadFromString(yaml);
+        return PluginSettings.load(config);
+    }
+}
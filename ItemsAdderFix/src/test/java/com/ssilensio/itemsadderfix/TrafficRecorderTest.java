@@ -0,0 +1,91 @@
+package com.ssilensio.itemsadderfix;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrafficRecorderTest {
+    private static final String LEGACY = "{\"text\":\"Zombie\",\"hoverEvent\":{\"action\":\"show_entity\","
+            + "\"contents\":{\"type\":\"minecraft:zombie\",\"id\":[1,2,3,4]}}}";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void roundTripsRecordsWithAnonymizedPlayers() throws IOException {
+        Path file = folder.resolve("recordings").resolve("traffic.bin");
+        try (TrafficRecorder recorder = new TrafficRecorder(file, true, 1 << 20, 64)) {
+            recorder.record("SYSTEM_CHAT", "Steve", "{\"text\":\"hi\"}");
+            recorder.record("SYSTEM_CHAT", "Alex", LEGACY);
+            assertTrue(recorder.flush());
+            recorder.record("BOSS", "Steve", "{\"text\":\"boss\"}");
+            recorder.record("TAB", null, "{\"text\":\"tab\"}");
+        }
+
+        List<TrafficRecorder.Entry> entries = TrafficReplay.load(file);
+        assertEquals(4, entries.size());
+        assertEquals("player-1", entries.get(0).playerName());
+        assertEquals("player-2", entries.get(1).playerName());
+        assertEquals("player-1", entries.get(2).playerName());
+        assertNull(entries.get(3).playerName());
+        assertEquals(LEGACY, entries.get(1).json());
+        assertEquals("BOSS", entries.get(2).packetType());
+    }
+
+    @Test
+    void stopsAtSizeLimit() throws IOException {
+        Path file = folder.resolve("traffic.bin");
+        TrafficRecorder recorder = new TrafficRecorder(file, false, 200, 64);
+        for (int i = 0; i < 10; i++) {
+            recorder.record("SYSTEM_CHAT", "Steve", "{\"text\":\"message " + i + "\"}");
+        }
+
+        assertFalse(recorder.flush());
+        assertTrue(recorder.isClosed());
+        long records = recorder.records();
+        assertTrue(records > 0 && records < 10);
+        assertEquals(records, TrafficReplay.load(file).size());
+    }
+
+    @Test
+    void dropsWhenQueueIsFull() throws IOException {
+        try (TrafficRecorder recorder = new TrafficRecorder(folder.resolve("traffic.bin"), false, 1 << 20, 16)) {
+            for (int i = 0; i < 20; i++) {
+                recorder.record("SYSTEM_CHAT", "Steve", "{}");
+            }
+            assertEquals(4, recorder.dropped());
+        }
+    }
+
+    @Test
+    void replaysThroughPipeline() throws IOException {
+        Path file = folder.resolve("traffic.bin");
+        try (TrafficRecorder recorder = new TrafficRecorder(file, false, 1 << 20, 64)) {
+            recorder.record("SYSTEM_CHAT", "Steve", "{\"text\":\"hi\"}");
+            recorder.record("SYSTEM_CHAT", "Steve", LEGACY);
+            recorder.record("SYSTEM_CHAT", "Steve", LEGACY);
+        }
+
+        HoverEventUuidNormalizer normalizer = new HoverEventUuidNormalizer();
+        Logger logger = Logger.getLogger("TrafficRecorderTest");
+        PluginSettings settings = PluginSettings.offline(new HoverEventUuidNormalizer.NormalizationOptions(true, true), true);
+        PluginMetrics metrics = new PluginMetrics();
+        TrafficReplay replay = new TrafficReplay(new NormalizationPipeline(normalizer, metrics),
+                PluginState.build(settings, null, normalizer, logger, null));
+
+        TrafficReplay.Result result = replay.run(TrafficReplay.load(file), false);
+        assertEquals(3, result.components());
+        assertEquals(2, result.changed());
+        assertEquals(3, metrics.components());
+        assertEquals(2L, (long) metrics.snapshot().get("rewrites.SYSTEM_CHAT"));
+    }
+}
@@ -12,6 +12,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -76,6 +77,31 @@ class HandledErrorLoggerTest {
         assertEquals(0, handledErrors.getLength(), "No handled error entries should be recorded when data is invalid");
     }
 
+    @Test
+    void writesBatchesInOnePass() throws Exception {
+        File dataFolder = tempDir.resolve("batch").toFile();
+        HandledErrorLogger handledErrorLogger = new HandledErrorLogger(
+                Logger.getLogger("HandledErrorLoggerBatchTest"),
+                dataFolder,
+                "handled-errors.xml",
+                true,
+                true
+        );
+        assertTrue(handledErrorLogger.initialize());
+
+        int written = handledErrorLogger.logNormalizations(List.of(
+                new HandledErrorLogger.Entry("[1,2,3,4]", "00000001-0000-0002-0000-000300000004"),
+                new HandledErrorLogger.Entry(null, "skipped"),
+                new HandledErrorLogger.Entry("{\"most\":1,\"least\":2}", "00000000-0000-0001-0000-000000000002")
+        ));
+
+        assertEquals(2, written);
+        Document document = parseDocument(dataFolder.toPath().resolve("handled-errors.xml").toFile());
+        NodeList handledErrors = document.getDocumentElement().getElementsByTagName("handledError");
+        assertEquals(2, handledErrors.getLength());
+        assertEquals("[1,2,3,4]", ((Element) handledErrors.item(0)).getElementsByTagName("original").item(0).getTextContent());
+    }
+
     private Document parseDocument(File file) throws Exception {
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         factory.setNamespaceAware(true);
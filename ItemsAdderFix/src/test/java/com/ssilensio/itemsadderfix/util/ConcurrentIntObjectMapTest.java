@@ -0,0 +1,59 @@
+package com.ssilensio.itemsadderfix.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ConcurrentIntObjectMapTest {
+    @Test
+    void putsReplacesAndRemovesValues() {
+        ConcurrentIntObjectMap<String> map = new ConcurrentIntObjectMap<>();
+        assertNull(map.put(7, "a"));
+        assertEquals("a", map.put(7, "b"));
+        assertEquals("b", map.get(7));
+        assertNull(map.get(8));
+
+        assertEquals("b", map.remove(7));
+        assertNull(map.get(7));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void computeIfAbsentCreatesOnce() {
+        ConcurrentIntObjectMap<Object> map = new ConcurrentIntObjectMap<>();
+        AtomicInteger created = new AtomicInteger();
+        Object first = map.computeIfAbsent(-3, key -> {
+            created.incrementAndGet();
+            return new Object();
+        });
+        Object second = map.computeIfAbsent(-3, key -> {
+            created.incrementAndGet();
+            return new Object();
+        });
+        assertSame(first, second);
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void survivesGrowthAndChurn() {
+        ConcurrentIntObjectMap<Integer> map = new ConcurrentIntObjectMap<>();
+        for (int key = 0; key < 2000; key++) {
+            map.put(key, key * 2);
+        }
+        for (int key = 0; key < 2000; key += 2) {
+            map.remove(key);
+        }
+        assertEquals(1000, map.size());
+        for (int key = 0; key < 2000; key++) {
+            assertEquals(key % 2 == 0 ? null : key * 2, map.get(key));
+        }
+
+        AtomicInteger visited = new AtomicInteger();
+        map.forEachValue(value -> visited.incrementAndGet());
+        assertEquals(1000, visited.get());
+    }
+}
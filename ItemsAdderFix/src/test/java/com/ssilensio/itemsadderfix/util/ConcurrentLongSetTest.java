@@ -0,0 +1,68 @@
+package com.ssilensio.itemsadderfix.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentLongSetTest {
+    @Test
+    void addsContainsAndRemovesKeys() {
+        ConcurrentLongSet set = new ConcurrentLongSet();
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertTrue(set.contains(42L));
+        assertFalse(set.contains(43L));
+
+        assertTrue(set.remove(42L));
+        assertFalse(set.remove(42L));
+        assertFalse(set.contains(42L));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void growsAndShrinksWithoutLosingKeys() {
+        ConcurrentLongSet set = new ConcurrentLongSet();
+        for (long key = -5000; key < 5000; key++) {
+            set.add(key * 31);
+        }
+        assertEquals(10000, set.size());
+        for (long key = -5000; key < 5000; key++) {
+            assertTrue(set.contains(key * 31));
+            assertFalse(set.contains(key * 31 + 1));
+        }
+
+        for (long key = -5000; key < 4990; key++) {
+            set.remove(key * 31);
+        }
+        assertEquals(10, set.size());
+        for (long key = 4990; key < 5000; key++) {
+            assertTrue(set.contains(key * 31));
+        }
+    }
+
+    @Test
+    void reusesRemovedSlotsWithoutBreakingProbeChains() {
+        ConcurrentLongSet set = new ConcurrentLongSet();
+        for (int round = 0; round < 100; round++) {
+            for (long key = 0; key < 6; key++) {
+                set.add(key + round);
+            }
+            for (long key = 0; key < 6; key++) {
+                assertTrue(set.contains(key + round));
+                set.remove(key + round);
+            }
+        }
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void rejectsReservedKeys() {
+        ConcurrentLongSet set = new ConcurrentLongSet();
+        assertThrows(IllegalArgumentException.class, () -> set.add(Long.MIN_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> set.add(Long.MIN_VALUE + 1));
+        assertFalse(set.contains(Long.MIN_VALUE + 1));
+    }
+}
@@ -0,0 +1,42 @@
+package com.ssilensio.itemsadderfix.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidStringCacheTest {
+    @Test
+    void formatsLikeUuidToString() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            assertEquals(uuid.toString(),
+                    UuidStringCache.format(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+        }
+        assertEquals("00000000-0000-0000-0000-000000000000", UuidStringCache.format(0, 0));
+        assertEquals("ffffffff-ffff-ffff-ffff-ffffffffffff", UuidStringCache.format(-1, -1));
+    }
+
+    @Test
+    void returnsCachedInstanceOnHit() {
+        UuidStringCache cache = new UuidStringCache(16);
+        String first = cache.get(1L, 2L);
+        assertSame(first, cache.get(1L, 2L));
+        assertEquals(new UUID(1L, 2L).toString(), first);
+    }
+
+    @Test
+    void staysBoundedUnderChurn() {
+        UuidStringCache cache = new UuidStringCache(64);
+        for (long i = 0; i < 10_000; i++) {
+            assertEquals(new UUID(i, ~i).toString(), cache.get(i, ~i));
+        }
+        assertTrue(cache.size() <= cache.capacity());
+        assertEquals(64, cache.capacity());
+    }
+}